@@ -3,6 +3,9 @@ export class AdminPanel {
     private container: HTMLElement;
     private isVisible = false;
     private currentUsers: any[] = [];
+    private currentSearch = '';
+    private nextAfterId: number | null = null;
+    private readonly pageSize = 50;
 
     constructor() {
         this.container = document.createElement('div');
@@ -345,21 +348,23 @@ export class AdminPanel {
 
     public async searchUsers() {
         const searchTerm = (document.getElementById('user-search') as HTMLInputElement)?.value;
-        if (!searchTerm) {
-            await this.loadUsers();
-            return;
-        }
+        await this.loadUsers(searchTerm?.trim() || '');
+    }
 
-        const filteredUsers = this.currentUsers.filter(user => 
-            user.username.toLowerCase().includes(searchTerm.toLowerCase()) ||
-            user.displayName?.toLowerCase().includes(searchTerm.toLowerCase())
-        );
-        this.renderUsers(filteredUsers);
+    public async loadMoreUsers() {
+        if (this.nextAfterId === null) return;
+        await this.loadUsers(this.currentSearch, this.nextAfterId);
     }
 
-    private async loadUsers() {
+    // 服务端按ID游标分页加载用户，统计数据由后端计数查询提供
+    // 搜索词按用户名或显示名的子串匹配（不区分大小写），与原来的前端过滤一致
+    private async loadUsers(keyword = '', afterId: number | null = null) {
         try {
-            const response = await fetch('http://localhost:8080/api/admin/users', {
+            const params = new URLSearchParams({ limit: String(this.pageSize) });
+            if (keyword) params.set('keyword', keyword);
+            if (afterId !== null) params.set('afterId', String(afterId));
+
+            const response = await fetch(`http://localhost:8080/api/admin/users/page?${params}`, {
                 headers: {
                     'Authorization': `Bearer ${localStorage.getItem('admin_token')}`
                 }
@@ -370,9 +375,12 @@ export class AdminPanel {
             }
 
             const data = await response.json();
-            this.currentUsers = data.users || [];
+            const users = data.users || [];
+            this.currentUsers = afterId === null ? users : this.currentUsers.concat(users);
+            this.currentSearch = keyword;
+            this.nextAfterId = data.hasMore ? data.nextAfterId : null;
             this.renderUsers(this.currentUsers);
-            this.updateStats();
+            this.updateStats(data);
         } catch (error) {
             console.error('加载用户失败:', error);
             this.showError('加载用户列表失败');
@@ -409,19 +417,20 @@ export class AdminPanel {
                     <button class="action-btn delete-btn" onclick="window.adminPanel.deleteUser(${user.id})">删除</button>
                 </td>
             </tr>
-        `).join('');
+        `).join('') + (this.nextAfterId !== null ?
+            '<tr><td colspan="8" class="loading"><button onclick="window.adminPanel.loadMoreUsers()">加载更多</button></td></tr>' : '');
     }
 
-    private updateStats() {
-        const totalUsers = this.currentUsers.length;
-        const onlineUsers = this.currentUsers.filter(u => u.isOnline && !u.isBanned).length;
-        const bannedUsers = this.currentUsers.filter(u => u.isBanned).length;
+    // total 只在第一页返回，加载更多时保留已显示的总数
+    private updateStats(data: { total?: number; online?: number; banned?: number }) {
+        const onlineUsers = data.online ?? 0;
+        const bannedUsers = data.banned ?? 0;
 
         const totalElement = document.getElementById('total-users');
         const onlineElement = document.getElementById('online-users');
         const bannedElement = document.getElementById('banned-users');
 
-        if (totalElement) totalElement.textContent = totalUsers.toString();
+        if (totalElement && data.total !== undefined) totalElement.textContent = data.total.toString();
         if (onlineElement) onlineElement.textContent = onlineUsers.toString();
         if (bannedElement) bannedElement.textContent = bannedUsers.toString();
     }
@@ -123,6 +123,47 @@ export const getStats = async (): Promise<{ success: boolean; stats: Stats; mess
   return request('/admin/stats')
 }
 
+export interface EventSubscription {
+  close: () => void
+}
+
+// 订阅管理员事件（SSE）。EventSource 不能设置请求头，先用 token 换取一次性票据，URL 中只出现票据；
+// 票据用过即失效，断线后浏览器用旧票据重连会失败，此时重新换取票据再连接
+export const subscribeAdminEvents = (handlers: Record<string, (data: any) => void>): EventSubscription | null => {
+  const token = localStorage.getItem('admin_token') || sessionStorage.getItem('admin_token')
+  if (!token) return null
+  let source: EventSource | null = null
+  let retry: ReturnType<typeof setTimeout> | undefined
+  let closed = false
+  const reconnect = () => {
+    if (!closed) retry = setTimeout(connect, 3000)
+  }
+  const connect = async () => {
+    try {
+      const { ticket } = await request('/admin/events/ticket', { method: 'POST' })
+      if (closed) return
+      source = new EventSource(`${API_BASE_URL}/admin/events?ticket=${encodeURIComponent(ticket)}`)
+      Object.entries(handlers).forEach(([name, handler]) => {
+        source!.addEventListener(name, (event) => handler(JSON.parse((event as MessageEvent).data)))
+      })
+      source.onerror = () => {
+        source?.close()
+        reconnect()
+      }
+    } catch {
+      reconnect()
+    }
+  }
+  connect()
+  return {
+    close: () => {
+      closed = true
+      clearTimeout(retry)
+      source?.close()
+    }
+  }
+}
+
 // 游戏相关API（可以后续扩展）
 export const gameAPI = {
     // 获取用户游戏数据
@@ -8,9 +8,16 @@ COLLATE utf8mb4_unicode_ci;
 -- 使用数据库
 USE moyu_game;
 
+-- 创建主键号段表（由JPA自动创建，这里只是参考）
+-- users、user_bans、admins 的主键由该表按号段分配（每次50个），应用启动时会对齐到各表现有的最大ID
+-- CREATE TABLE id_sequences (
+--     sequence_name VARCHAR(255) PRIMARY KEY,
+--     next_val BIGINT
+-- );
+
 -- 创建用户表（由JPA自动创建，这里只是参考）
 -- CREATE TABLE users (
---     id BIGINT AUTO_INCREMENT PRIMARY KEY,
+--     id BIGINT PRIMARY KEY,
 --     username VARCHAR(50) NOT NULL UNIQUE,
 --     password VARCHAR(255) NOT NULL,
 --     email VARCHAR(100) UNIQUE,
@@ -23,17 +30,58 @@ USE moyu_game;
 --     updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 -- );
 
+-- 创建家园存档表（由JPA自动创建，这里只是参考；data为 GardenCodec 编码的二进制存档）
+-- CREATE TABLE garden_snapshots (
+--     user_id BIGINT PRIMARY KEY,
+--     format_version INT NOT NULL,
+--     data BLOB NOT NULL,
+--     updated_at DATETIME
+-- );
+
+-- 创建玩家余额表与货币账本表（由JPA自动创建，这里只是参考）
+-- CREATE TABLE player_wallets (
+--     user_id BIGINT PRIMARY KEY,
+--     gold BIGINT NOT NULL DEFAULT 0,
+--     silver BIGINT NOT NULL DEFAULT 0,
+--     crystal BIGINT NOT NULL DEFAULT 0,
+--     updated_at DATETIME
+-- );
+-- CREATE TABLE currency_ledger (
+--     id BIGINT AUTO_INCREMENT PRIMARY KEY,
+--     user_id BIGINT NOT NULL,
+--     currency VARCHAR(16) NOT NULL,
+--     delta BIGINT NOT NULL,
+--     balance_after BIGINT NOT NULL,
+--     reason VARCHAR(64),
+--     created_at DATETIME NOT NULL,
+--     INDEX idx_currency_ledger_user (user_id, id)
+-- );
+
+-- 创建排行榜快照表（由JPA自动创建，这里只是参考）
+-- CREATE TABLE leaderboard_entries (
+--     id BIGINT AUTO_INCREMENT PRIMARY KEY,
+--     board VARCHAR(16) NOT NULL,
+--     user_id BIGINT NOT NULL,
+--     score BIGINT NOT NULL,
+--     updated_at DATETIME,
+--     UNIQUE KEY uk_leaderboard_board_user (board, user_id)
+-- );
+
+-- 主键没有自增，先从号段表占用一段ID（号段值为V时应用下一次分配 [V-49, V]，占用后改为分配 [V+1, V+50]）
+-- 号段表由应用首次启动时创建并对齐
+UPDATE id_sequences SET next_val = next_val + 50 WHERE sequence_name IN ('users', 'admins');
+
 -- 插入测试用户（密码是BCrypt加密后的"123456"）
 -- 注意：实际使用时，密码应该通过应用注册功能创建
-INSERT INTO users (username, password, display_name, user_role, is_online, created_at, updated_at) 
-VALUES 
-('testuser', '$2a$10$N.zmdr9k7uOCQb376NoUnuTJ8iAt6Z5EHsM8lE9lBOsl7iKTVEFDa', '测试用户', 'USER', false, NOW(), NOW())
+INSERT INTO users (id, username, password, display_name, user_role, is_online, created_at, updated_at) 
+SELECT next_val - 50, 'testuser', '$2a$10$N.zmdr9k7uOCQb376NoUnuTJ8iAt6Z5EHsM8lE9lBOsl7iKTVEFDa', '测试用户', 'USER', false, NOW(), NOW()
+FROM id_sequences WHERE sequence_name = 'users'
 ON DUPLICATE KEY UPDATE updated_at = NOW();
 
 -- 插入管理员账号（密码是BCrypt加密后的"admin123"，密钥是"moyu2025"）
-INSERT INTO admins (username, password, admin_secret, display_name, is_active, created_at, updated_at) 
-VALUES 
-('admin', '$2a$10$8K1p/a0dL1LXMIgoEDFrwOe6g7pfO8VqZxH3YzH3YzH3YzH3YzH3Y', 'moyu2025', '系统管理员', true, NOW(), NOW())
+INSERT INTO admins (id, username, password, admin_secret, display_name, is_active, created_at, updated_at) 
+SELECT next_val - 50, 'admin', '$2a$10$8K1p/a0dL1LXMIgoEDFrwOe6g7pfO8VqZxH3YzH3YzH3YzH3YzH3Y', 'moyu2025', '系统管理员', true, NOW(), NOW()
+FROM id_sequences WHERE sequence_name = 'admins'
 ON DUPLICATE KEY UPDATE updated_at = NOW();
 
 -- 查看创建的用户
@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# 本机压测：打包后以 loadtest profile（内存H2、预置用户/管理员/封禁）启动后端，运行压测驱动，结束后关闭后端
+# 压测配置和预置数据位于 src/loadtest/resources，H2 为测试依赖，二者都不在发布包中，启动时通过 loader.path 加入类路径
+# 汇总写入 target/loadtest/summary-<时间>.json，后端日志写入 target/loadtest/server.log
+#
+# 用法：./loadtest.sh [驱动参数...]
+#   ./loadtest.sh --duration 60 --warmup 10 --concurrency 200 --mix register=5,login=20,validate=65,admin=10 --label baseline
+# 环境变量：MVN（默认 sh ./mvnw，离线可设为 "sh ./mvnw -o"）、PORT（默认 18080）、SERVER_OPTS（后端JVM参数）、SERVER_ARGS（后端额外参数）
+set -euo pipefail
+cd "$(dirname "$0")"
+
+MVN="${MVN:-sh ./mvnw}"
+PORT="${PORT:-18080}"
+OUT_DIR=target/loadtest
+mkdir -p "$OUT_DIR"
+
+$MVN -B -q -DskipTests package
+JAR=$(ls target/moyu-ultimate-*.jar | head -n 1)
+# 从测试类路径中取出H2驱动
+H2_JAR=$($MVN -B -q exec:exec -Dexec.executable=echo -Dexec.classpathScope=test -Dexec.args="%classpath" \
+    | tr ':' '\n' | grep '/h2-.*\.jar$' | head -n 1)
+
+java ${SERVER_OPTS:-} -Dloader.path="$H2_JAR,src/loadtest/resources" \
+    -cp "$JAR" org.springframework.boot.loader.launch.PropertiesLauncher \
+    --spring.profiles.active=loadtest --server.port="$PORT" ${SERVER_ARGS:-} \
+    > "$OUT_DIR/server.log" 2>&1 &
+SERVER_PID=$!
+trap 'kill "$SERVER_PID" 2>/dev/null || true; wait "$SERVER_PID" 2>/dev/null || true' EXIT
+
+echo "等待后端启动（端口 $PORT）..."
+for _ in $(seq 1 120); do
+    if curl -sf "http://localhost:$PORT/api/auth/health" > /dev/null; then
+        break
+    fi
+    if ! kill -0 "$SERVER_PID" 2>/dev/null; then
+        echo "后端启动失败，见 $OUT_DIR/server.log" >&2
+        exit 1
+    fi
+    sleep 1
+done
+
+$MVN -B -q exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.lby.moyuultimate.loadtest.LoadDriver \
+    -Dexec.args="--base-url http://localhost:$PORT/api --out $OUT_DIR $*"
@@ -0,0 +1,97 @@
+package com.lby.moyuultimate.benchmark;
+
+import com.lby.moyuultimate.entity.Admin;
+import com.lby.moyuultimate.entity.BanType;
+import com.lby.moyuultimate.entity.User;
+import com.lby.moyuultimate.repository.UserBanRepository;
+import com.lby.moyuultimate.repository.UserRepository;
+import com.lby.moyuultimate.service.AdminService;
+import com.lby.moyuultimate.service.BanIndexService;
+import com.lby.moyuultimate.service.JwtService;
+import com.lby.moyuultimate.service.PresenceService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * AdminService.getAllUsers 在合成数据上的聚合耗时（合并封禁状态、统计封禁人数）
+ * 仓库返回内存中的用户列表，不包含数据库查询
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdminUserListBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int users;
+
+    /** 被封禁用户的比例（百分比） */
+    @Param({"1"})
+    public int bannedPercent;
+
+    private AdminService adminService;
+    private String adminToken;
+
+    @Setup
+    public void setUp() {
+        List<User> allUsers = new ArrayList<>(users);
+        List<Object[]> bans = new ArrayList<>();
+        int banEvery = bannedPercent > 0 ? 100 / bannedPercent : Integer.MAX_VALUE;
+        for (long id = 1; id <= users; id++) {
+            allUsers.add(BenchmarkFixtures.user(id));
+            if (id % banEvery == 0) {
+                bans.add(new Object[]{id, id, BanType.PERMANENT, null});
+            }
+        }
+
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findAll()).thenReturn(allUsers);
+        UserBanRepository userBanRepository = mock(UserBanRepository.class, withSettings().stubOnly());
+        when(userBanRepository.findAllActiveBanStates()).thenReturn(bans);
+        BanIndexService banIndexService = new BanIndexService();
+        ReflectionTestUtils.setField(banIndexService, "userBanRepository", userBanRepository);
+        ReflectionTestUtils.invokeMethod(banIndexService, "warmUp");
+
+        JwtService jwtService = BenchmarkFixtures.jwtService();
+        Admin admin = new Admin("admin", "x", "moyu2025");
+        admin.setId(1L);
+        adminToken = jwtService.generateAdminToken(admin);
+
+        adminService = new AdminService();
+        ReflectionTestUtils.setField(adminService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(adminService, "jwtService", jwtService);
+        ReflectionTestUtils.setField(adminService, "banIndexService", banIndexService);
+        ReflectionTestUtils.setField(adminService, "presenceService", new PresenceService());
+
+        Map<String, Object> response = adminService.getAllUsers(adminToken);
+        if (!Long.valueOf(bans.size()).equals(response.get("banned"))) {
+            throw new IllegalStateException("unexpected response: " + response.keySet());
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> getAllUsers() {
+        return adminService.getAllUsers(adminToken);
+    }
+}
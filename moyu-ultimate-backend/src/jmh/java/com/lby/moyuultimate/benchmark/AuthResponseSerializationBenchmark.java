@@ -0,0 +1,63 @@
+package com.lby.moyuultimate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lby.moyuultimate.dto.AuthResponse;
+import com.lby.moyuultimate.entity.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthResponse 序列化为JSON响应体
+ * ObjectMapper 与 Spring Boot 默认配置一致（Jackson2ObjectMapperBuilder）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthResponseSerializationBenchmark {
+
+    /** login：登录成功的完整响应；error：只有success和message */
+    @Param({"login", "error"})
+    public String payload;
+
+    private ObjectMapper objectMapper;
+    private AuthResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        if ("error".equals(payload)) {
+            response = new AuthResponse(false, "用户名或密码错误");
+            return;
+        }
+        String token = BenchmarkFixtures.jwtService().generateToken(BenchmarkFixtures.user(1));
+        response = new AuthResponse(token, 1L, "player1", true);
+        response.setDisplayName("玩家1");
+        response.setEmail("player1@example.com");
+        response.setRole(UserRole.USER);
+        response.setIsOnline(true);
+        response.setLastLoginTime(LocalDateTime.of(2025, 1, 1, 12, 0));
+        response.setMessage("登录成功");
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
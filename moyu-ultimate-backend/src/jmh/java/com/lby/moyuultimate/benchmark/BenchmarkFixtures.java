@@ -0,0 +1,33 @@
+package com.lby.moyuultimate.benchmark;
+
+import com.lby.moyuultimate.entity.User;
+import com.lby.moyuultimate.service.JwtService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 基准测试共用的服务实例（不启动Spring容器，按 application.properties 的默认值手工装配）
+ */
+final class BenchmarkFixtures {
+
+    static final String JWT_SECRET = "moyu-ultimate-benchmark-secret-key-0123456789";
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtService jwtService() {
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtService, "expiration", 86_400_000L);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxSize", 10_000);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        return jwtService;
+    }
+
+    static User user(long id) {
+        User user = new User("player" + id, "{bcrypt}$2a$10$N.zmdr9k7uOCQb376NoUnuTJ8iAt6Z5EHsM8lE9lBOsl7iKTVEFDa");
+        user.setId(id);
+        user.setEmail("player" + id + "@example.com");
+        user.setDisplayName("玩家" + id);
+        return user;
+    }
+}
@@ -0,0 +1,90 @@
+package com.lby.moyuultimate.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 对比两次JMH运行的JSON结果（-rf json）
+ * 变化超出两次误差区间之和时标记为显著；耗时类模式越小越好，吞吐模式越大越好
+ *
+ * 用法：JmhCompare baseline.json candidate.json
+ */
+public final class JmhCompare {
+
+    private JmhCompare() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: JmhCompare <baseline.json> <candidate.json>");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = load(args[0]);
+        Map<String, JsonNode> candidate = load(args[1]);
+
+        System.out.printf("%-70s %16s %16s %9s%n", "benchmark", "baseline", "candidate", "change");
+        for (Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+            JsonNode after = entry.getValue().get("primaryMetric");
+            JsonNode before = baseline.containsKey(entry.getKey())
+                    ? baseline.get(entry.getKey()).get("primaryMetric") : null;
+            String unit = after.get("scoreUnit").asText();
+            if (before == null) {
+                System.out.printf("%-70s %16s %16s %9s%n", entry.getKey(), "-",
+                        format(after.get("score").asDouble(), unit), "new");
+                continue;
+            }
+            double oldScore = before.get("score").asDouble();
+            double newScore = after.get("score").asDouble();
+            double error = finite(before.get("scoreError").asDouble()) + finite(after.get("scoreError").asDouble());
+            boolean throughput = "thrpt".equals(entry.getValue().get("mode").asText());
+            double change = (newScore - oldScore) / oldScore * 100;
+            String verdict = Math.abs(newScore - oldScore) <= error ? ""
+                    : (newScore > oldScore) == throughput ? " better" : " worse";
+            System.out.printf("%-70s %16s %16s %+8.1f%%%s%n", entry.getKey(), format(oldScore, unit),
+                    format(newScore, unit), change, verdict);
+        }
+        for (String key : baseline.keySet()) {
+            if (!candidate.containsKey(key)) {
+                System.out.printf("%-70s %16s %16s %9s%n", key, "", "-", "removed");
+            }
+        }
+    }
+
+    /**
+     * 以 benchmark 名称加参数作为key
+     */
+    private static Map<String, JsonNode> load(String path) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(path))) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText()
+                    .replace("com.lby.moyuultimate.benchmark.", ""));
+            JsonNode params = result.get("params");
+            if (params != null) {
+                key.append(' ');
+                for (Iterator<Map.Entry<String, JsonNode>> it = params.fields(); it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> param = it.next();
+                    key.append(param.getKey()).append('=').append(param.getValue().asText());
+                    if (it.hasNext()) {
+                        key.append(',');
+                    }
+                }
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double finite(double value) {
+        return Double.isFinite(value) ? value : 0;
+    }
+
+    private static String format(double score, String unit) {
+        return String.format("%.3f %s", score, unit);
+    }
+}
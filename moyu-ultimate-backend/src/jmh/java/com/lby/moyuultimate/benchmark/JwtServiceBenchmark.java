@@ -0,0 +1,61 @@
+package com.lby.moyuultimate.benchmark;
+
+import com.lby.moyuultimate.entity.User;
+import com.lby.moyuultimate.service.JwtService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT签发与解析
+ * createToken/extractAllClaims 为私有方法，通过 generateToken 与 extractUserId 调用；
+ * 未命中缓存的解析在每次调用前清空claims缓存（单条缓存的清空开销可忽略）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+    private Map<?, ?> claimsCache;
+
+    @Setup
+    public void setUp() {
+        jwtService = BenchmarkFixtures.jwtService();
+        user = BenchmarkFixtures.user(1);
+        token = jwtService.generateToken(user);
+        claimsCache = (Map<?, ?>) ReflectionTestUtils.getField(jwtService, "claimsCache");
+    }
+
+    @Benchmark
+    public String createToken() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public Long extractAllClaimsCached() {
+        return jwtService.extractUserId(token);
+    }
+
+    @Benchmark
+    public Long extractAllClaimsUncached() {
+        claimsCache.clear();
+        return jwtService.extractUserId(token);
+    }
+}
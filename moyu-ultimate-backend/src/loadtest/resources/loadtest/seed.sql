@@ -0,0 +1,18 @@
+-- 压测预置数据（loadtest profile，H2）
+-- 用户 loaduser1 ~ loaduser10000，密码 123456；每100个用户中有1个被永久封禁（loaduser100、loaduser200 ...）
+-- 管理员 admin，密码 admin123，密钥 moyu2025
+-- 主键号段由 IdSequenceInitializer 在启动时对齐到这里插入的最大ID
+
+INSERT INTO admins (id, username, password, admin_secret, display_name, is_active, created_at, updated_at)
+VALUES (1, 'admin', '{bcrypt}$2a$10$xLbJL6zgmkl10KjF0WBtJOSQFpIiyzL48pl0zZkHIvwvNgjScVdV.', 'moyu2025', '压测管理员', TRUE,
+        CURRENT_TIMESTAMP, CURRENT_TIMESTAMP);
+
+INSERT INTO users (id, username, password, email, display_name, user_role, is_online, created_at, updated_at)
+SELECT X, 'loaduser' || X, '{bcrypt}$2a$10$OUNI8sWzA1gZp2YjVHk8bedVoKujcbwmJ3dVVxBrEs1BoZj9NDrga',
+       'loaduser' || X || '@example.com', '压测用户' || X, 'USER', FALSE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+FROM SYSTEM_RANGE(1, 10000);
+
+INSERT INTO user_bans (id, user_id, admin_id, ban_type, ban_reason, ban_start_time, is_active, created_at)
+SELECT X / 100, X, 1, 'PERMANENT', '压测预置封禁', CURRENT_TIMESTAMP, TRUE, CURRENT_TIMESTAMP
+FROM SYSTEM_RANGE(1, 10000)
+WHERE MOD(X, 100) = 0;
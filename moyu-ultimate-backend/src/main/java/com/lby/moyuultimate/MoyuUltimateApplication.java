@@ -4,9 +4,13 @@ package com.lby.moyuultimate;
 import org.springframework.boot.SpringApplication;
 // 导入Spring Boot自动配置注解，启用自动配置功能
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+// 导入定时任务注解，启用封禁到期等后台任务
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 // 标记这是一个Spring Boot应用的主类，并启用自动配置和组件扫描
 @SpringBootApplication
+// 启用定时任务调度
+@EnableScheduling
 public class MoyuUltimateApplication {
 
 	// 主方法，应用程序入口点
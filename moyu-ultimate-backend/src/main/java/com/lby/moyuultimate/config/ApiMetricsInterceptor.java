@@ -0,0 +1,77 @@
+package com.lby.moyuultimate.config;
+
+import com.lby.moyuultimate.controller.AdminController;
+import com.lby.moyuultimate.controller.AuthController;
+import com.lby.moyuultimate.service.ApiOutcome;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证与管理接口的耗时和结果指标：moyu.api.requests{controller, endpoint, outcome}
+ * 异步请求（如流式导出）从第一次进入开始计时，到异步处理结束时记录；
+ * outcome 为 error 时另外按异常类型计数 moyu.api.errors
+ */
+public class ApiMetricsInterceptor implements HandlerInterceptor {
+    
+    private static final String START_ATTRIBUTE = ApiMetricsInterceptor.class.getName() + ".start";
+    private static final Set<Class<?>> INSTRUMENTED = Set.of(AuthController.class, AdminController.class);
+    
+    private final MeterRegistry meterRegistry;
+    
+    public ApiMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+    
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod method)
+                || !INSTRUMENTED.contains(ClassUtils.getUserClass(method.getBeanType()))
+                || !(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        String controller = ClassUtils.getUserClass(method.getBeanType()).getSimpleName();
+        String endpoint = method.getMethod().getName();
+        String outcome = outcomeOf(request, response, ex);
+        Timer.builder("moyu.api.requests")
+                .description("认证与管理接口耗时")
+                .tag("controller", controller)
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (ApiOutcome.ERROR.equals(outcome)) {
+            Object exception = request.getAttribute(ApiOutcome.EXCEPTION_ATTRIBUTE);
+            meterRegistry.counter("moyu.api.errors", "controller", controller, "endpoint", endpoint,
+                    "exception", exception != null ? exception.toString()
+                            : ex != null ? ex.getClass().getSimpleName() : "none").increment();
+        }
+    }
+    
+    private static String outcomeOf(HttpServletRequest request, HttpServletResponse response, Exception ex) {
+        if (request.getAttribute(ApiOutcome.ATTRIBUTE) instanceof String outcome) {
+            return outcome;
+        }
+        int status = response.getStatus();
+        if (ex != null || (status >= 500 && status != 503)) {
+            return ApiOutcome.ERROR;
+        }
+        // 参数校验失败、密码哈希线程池繁忙等
+        return status >= 400 ? ApiOutcome.REJECTED : ApiOutcome.SUCCESS;
+    }
+}
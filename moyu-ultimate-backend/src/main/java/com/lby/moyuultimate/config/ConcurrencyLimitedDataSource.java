@@ -0,0 +1,161 @@
+package com.lby.moyuultimate.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 限制同时持有数据库连接的数量（许可数比连接池大小少预留的连接数）
+ * 虚拟线程模式下请求并发不再受工作线程数限制，成千上万的请求会同时排队等待连接池；
+ * 这里先在公平信号量上等待（虚拟线程等待时释放载体线程），等待者过多或超时立即失败，
+ * 而不是让所有请求都等满连接池超时。
+ * 已持有连接的线程再取连接（如 Hibernate TABLE 主键生成器在独立连接上分配号段）不再占用许可，
+ * 否则所有许可都被外层事务占住时，内层获取会一直等到超时；这些连接使用连接池中预留的部分
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+    
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final int maxWaiters;
+    private final long acquireTimeoutMs;
+    
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder nested = new LongAdder();
+    
+    // 当前线程持有的连接数
+    private final ThreadLocal<AtomicInteger> heldByThread = ThreadLocal.withInitial(AtomicInteger::new);
+    
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+    
+    public ConcurrencyLimitedDataSource(DataSource target, int maxPermits, int maxWaiters, long acquireTimeoutMs) {
+        super(target);
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.maxWaiters = maxWaiters;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return limited(super::getConnection);
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return limited(() -> super.getConnection(username, password));
+    }
+    
+    /**
+     * 获取并发限制统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxPermits", maxPermits);
+        stats.put("inUse", maxPermits - permits.availablePermits());
+        stats.put("waiting", waiting.get());
+        stats.put("acquired", acquired.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("nested", nested.sum());
+        return stats;
+    }
+    
+    private Connection limited(ConnectionSource source) throws SQLException {
+        AtomicInteger held = heldByThread.get();
+        boolean ownsPermit = held.get() == 0;
+        if (ownsPermit) {
+            acquire();
+        } else {
+            nested.increment();
+        }
+        held.incrementAndGet();
+        try {
+            return releaseOnClose(source.get(), held, ownsPermit);
+        } catch (SQLException | RuntimeException e) {
+            held.decrementAndGet();
+            if (ownsPermit) {
+                permits.release();
+            }
+            throw e;
+        }
+    }
+    
+    private void acquire() throws SQLException {
+        if (permits.tryAcquire()) {
+            acquired.increment();
+            return;
+        }
+        if (waiting.incrementAndGet() > maxWaiters) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new SQLTransientConnectionException("数据库繁忙，等待连接的请求过多");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timedOut.increment();
+                throw new SQLTransientConnectionException("数据库繁忙，等待连接超时");
+            }
+            acquired.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("等待数据库连接时被中断", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+    
+    /**
+     * 包装连接，close 时归还许可（重复 close 只归还一次）
+     */
+    private Connection releaseOnClose(Connection connection, AtomicInteger held, boolean ownsPermit) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                held.decrementAndGet();
+                                if (ownsPermit) {
+                                    permits.release();
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                    if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,45 @@
+package com.lby.moyuultimate.config;
+
+import com.lby.moyuultimate.entity.IdSequences;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时把主键号段对齐到各表现有的最大ID
+ * 原来由 AUTO_INCREMENT 生成的数据以及手工插入的数据不在号段表中，不对齐会分配到已存在的ID。
+ * Hibernate 读到号段值 V 时分配 [V - ALLOCATION_SIZE + 1, V]，因此号段值至少为最大ID + ALLOCATION_SIZE
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class IdSequenceInitializer {
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @PostConstruct
+    public void alignWithExistingIds() {
+        IdSequences.TABLES.forEach((sequence, table) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            align(sequence, maxId + IdSequences.ALLOCATION_SIZE);
+        });
+    }
+    
+    private void align(String sequence, long floor) {
+        String update = "UPDATE " + IdSequences.TABLE + " SET " + IdSequences.VALUE_COLUMN + " = GREATEST("
+                + IdSequences.VALUE_COLUMN + ", ?) WHERE " + IdSequences.NAME_COLUMN + " = ?";
+        if (jdbcTemplate.update(update, floor, sequence) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO " + IdSequences.TABLE + " (" + IdSequences.NAME_COLUMN + ", "
+                    + IdSequences.VALUE_COLUMN + ") VALUES (?, ?)", sequence, floor);
+        } catch (DuplicateKeyException e) {
+            // 另一个实例同时插入了该行
+            jdbcTemplate.update(update, floor, sequence);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.lby.moyuultimate.config;
+
+import com.lby.moyuultimate.service.BanIndexService;
+import com.lby.moyuultimate.service.LoginRateLimiter;
+import com.lby.moyuultimate.service.PresenceService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 业务指标：认证与管理接口的耗时/结果，在线人数、活跃封禁数和限流跟踪的键数
+ * 连接池（hikaricp_*）、JVM、HTTP请求等指标由 Spring Boot Actuator 自动注册，统一从管理端口的 /actuator/prometheus 导出
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ApiMetricsInterceptor(meterRegistry))
+                .addPathPatterns("/auth/**", "/admin/**");
+    }
+    
+    @Bean
+    public MeterBinder gameMetrics(PresenceService presenceService, BanIndexService banIndexService,
+                                   LoginRateLimiter loginRateLimiter) {
+        return registry -> {
+            Gauge.builder("moyu.presence.online", presenceService, PresenceService::getOnlineCount)
+                    .description("在线用户数")
+                    .register(registry);
+            Gauge.builder("moyu.bans.active", banIndexService, BanIndexService::countBanned)
+                    .description("未到期的封禁数")
+                    .register(registry);
+            Gauge.builder("moyu.ratelimit.keys", loginRateLimiter, LoginRateLimiter::getTrackedKeys)
+                    .description("登录与注册限流跟踪的键数")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.lby.moyuultimate.config;
+
+import com.lby.moyuultimate.service.QueryTraceService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * SQL执行追踪（query-tracing.enabled=false 可关闭），数据源外层包一个计时代理
+ */
+@Configuration
+@ConditionalOnProperty(name = "query-tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryTracingConfig {
+    
+    @Bean
+    public static BeanPostProcessor queryTracingDataSourcePostProcessor(ObjectProvider<QueryTraceService> queryTraceService) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof QueryTracingDataSource) {
+                    return bean;
+                }
+                return new QueryTracingDataSource(dataSource, queryTraceService.getObject());
+            }
+        };
+    }
+}
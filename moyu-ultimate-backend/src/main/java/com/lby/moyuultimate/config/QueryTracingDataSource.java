@@ -0,0 +1,118 @@
+package com.lby.moyuultimate.config;
+
+import com.lby.moyuultimate.service.QueryTraceService;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * 记录每条SQL执行耗时的数据源包装
+ * 连接上创建的 Statement/PreparedStatement 被包装，execute* 调用计时后交给 QueryTraceService；
+ * 查询只统计到返回结果集为止，逐行读取结果（如流式导出）的时间不计入
+ */
+public class QueryTracingDataSource extends DelegatingDataSource {
+    
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+    
+    private final QueryTraceService queryTraceService;
+    
+    public QueryTracingDataSource(DataSource target, QueryTraceService queryTraceService) {
+        super(target);
+        this.queryTraceService = queryTraceService;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return traceConnection(super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return traceConnection(super.getConnection(username, password));
+    }
+    
+    private Connection traceConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object identity = identityMethod(proxy, method, args);
+                    if (identity != null) {
+                        return identity;
+                    }
+                    Object result = invoke(method, connection, args);
+                    if (STATEMENT_FACTORIES.contains(method.getName()) && result instanceof Statement statement) {
+                        // createStatement 的SQL在执行时传入
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                        return traceStatement(statement, method.getReturnType(), proxy, sql);
+                    }
+                    return result;
+                });
+    }
+    
+    private Statement traceStatement(Statement statement, Class<?> type, Object connection, String preparedSql) {
+        // Statement.addBatch(sql) 的批量语句，执行时以最后一条作为形状
+        String[] batchSql = new String[1];
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    Object identity = identityMethod(proxy, method, args);
+                    if (identity != null) {
+                        return identity;
+                    }
+                    String name = method.getName();
+                    if ("getConnection".equals(name) && method.getParameterCount() == 0) {
+                        return connection;
+                    }
+                    if ("addBatch".equals(name) && args != null && args.length == 1) {
+                        batchSql[0] = (String) args[0];
+                    }
+                    if (!name.startsWith("execute")) {
+                        return invoke(method, statement, args);
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                    if (name.endsWith("Batch")) {
+                        sql = "batch: " + (sql != null ? sql : batchSql[0]);
+                    }
+                    boolean failed = true;
+                    long start = System.nanoTime();
+                    try {
+                        Object result = invoke(method, statement, args);
+                        failed = false;
+                        return result;
+                    } finally {
+                        if (sql != null) {
+                            queryTraceService.record(sql, System.nanoTime() - start, failed);
+                        }
+                    }
+                });
+    }
+    
+    /**
+     * 代理自身的 equals/hashCode/unwrap
+     */
+    private static Object identityMethod(Object proxy, Method method, Object[] args) {
+        if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        if ("unwrap".equals(method.getName()) && ((Class<?>) args[0]).isInstance(proxy)) {
+            return proxy;
+        }
+        return null;
+    }
+    
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.lby.moyuultimate.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
@@ -13,11 +15,23 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
     
+    // 新哈希使用的算法和BCrypt强度，低于此强度的旧哈希在登录成功后自动升级
+    private static final String PASSWORD_ENCODER_ID = "bcrypt";
+    
+    @Value("${auth.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    
+    // 管理端口（健康检查与Prometheus抓取），未单独配置时为-1，指标不对外开放
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+    
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -29,7 +43,11 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/admin/**").permitAll()
                 .requestMatchers("/api/admin/**").permitAll()
+                .requestMatchers("/game/**").permitAll()
+                .requestMatchers("/api/game/**").permitAll()
                 .requestMatchers("/").permitAll()
+                // 健康检查与Prometheus抓取只在管理端口上开放，业务端口上的请求不放行
+                .requestMatchers(request -> request.getLocalPort() == managementPort).permitAll()
                 .anyRequest().authenticated()
             );
         
@@ -38,7 +56,14 @@ public class SecurityConfig {
     
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(PASSWORD_ENCODER_ID, new BCryptPasswordEncoder(bcryptStrength));
+        
+        // 哈希以{bcrypt}前缀记录算法，BCrypt哈希本身记录强度
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(PASSWORD_ENCODER_ID, encoders);
+        // 兼容没有算法前缀的历史BCrypt哈希
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
     
     @Bean
@@ -0,0 +1,51 @@
+package com.lby.moyuultimate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * 虚拟线程模式（spring.threads.virtual.enabled=true）下的附加配置
+ * Spring Boot 负责让 Tomcat 请求处理和定时任务运行在虚拟线程上，这里为数据源加上并发限制，
+ * 许可数取连接池的最大连接数减去预留连接数（留给事务内的主键号段分配等嵌套获取）
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                // 数据源可能已被其他包装（如SQL追踪）包住
+                HikariDataSource hikari = unwrapHikari(dataSource);
+                int poolSize = hikari != null
+                        ? hikari.getMaximumPoolSize()
+                        : environment.getProperty("db.concurrency.max-permits", Integer.class, 10);
+                int reserved = environment.getProperty("db.concurrency.reserved-connections", Integer.class, 2);
+                int permits = Math.max(poolSize - reserved, 1);
+                return new ConcurrencyLimitedDataSource(dataSource, permits,
+                        environment.getProperty("db.concurrency.max-waiters", Integer.class, 1000),
+                        environment.getProperty("db.concurrency.acquire-timeout-ms", Long.class, 3000L));
+            }
+        };
+    }
+    
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -3,12 +3,20 @@ package com.lby.moyuultimate.controller;
 import com.lby.moyuultimate.dto.AdminLoginRequest;
 import com.lby.moyuultimate.dto.AuthResponse;
 import com.lby.moyuultimate.dto.UserBanRequest;
+import com.lby.moyuultimate.entity.UserRole;
 import com.lby.moyuultimate.service.AdminService;
+import com.lby.moyuultimate.service.LoginRateLimiter;
+import com.lby.moyuultimate.service.UserExportService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 @RestController
@@ -19,11 +27,20 @@ public class AdminController {
     @Autowired
     private AdminService adminService;
     
+    @Autowired
+    private UserExportService userExportService;
+    
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    
     /**
      * 管理员登录
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AdminLoginRequest loginRequest) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AdminLoginRequest loginRequest,
+                                              HttpServletRequest request) {
+        // 限流在查库和密码校验之前
+        loginRateLimiter.checkAdminLogin(loginRequest.getUsername(), request.getRemoteAddr());
         AuthResponse response = adminService.login(loginRequest);
         return ResponseEntity.ok(response);
     }
@@ -42,6 +59,230 @@ public class AdminController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 分页获取用户列表
+     */
+    @GetMapping("/users/page")
+    public ResponseEntity<Map<String, Object>> getUserPage(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Boolean online,
+            @RequestParam(required = false) Boolean banned,
+            @RequestParam(required = false) UserRole role,
+            @RequestParam(required = false) String namePrefix,
+            @RequestParam(required = false) String keyword) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getUserPage(token, afterId, limit, online, banned, role,
+                namePrefix, keyword);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 流式导出全部用户（format=ndjson或csv）
+     */
+    @GetMapping("/users/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        if (!userExportService.isExportAllowed(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        if ("csv".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header("Content-Disposition", "attachment; filename=\"users.csv\"")
+                    .body(userExportService::exportCsv);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header("Content-Disposition", "attachment; filename=\"users.ndjson\"")
+                .body(userExportService::exportNdjson);
+    }
+    
+    /**
+     * 获取token缓存统计
+     */
+    @GetMapping("/stats/token-cache")
+    public ResponseEntity<Map<String, Object>> getTokenCacheStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getTokenCacheStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取密码哈希线程池统计
+     */
+    @GetMapping("/stats/password-hashing")
+    public ResponseEntity<Map<String, Object>> getPasswordHashingStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getPasswordHashingStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 校准BCrypt强度（返回各强度的单次哈希耗时及推荐值）
+     */
+    @PostMapping("/password-hashing/calibrate")
+    public ResponseEntity<Map<String, Object>> calibratePasswordHashing(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(defaultValue = "50") long targetMs) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.calibratePasswordHashing(token, targetMs);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取在线状态统计
+     */
+    @GetMapping("/stats/presence")
+    public ResponseEntity<Map<String, Object>> getPresenceStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getPresenceStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取封禁到期处理统计
+     */
+    @GetMapping("/stats/ban-expiry")
+    public ResponseEntity<Map<String, Object>> getBanExpiryStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getBanExpiryStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取家园统计
+     */
+    @GetMapping("/stats/garden")
+    public ResponseEntity<Map<String, Object>> getGardenStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getGardenStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取货币账本统计
+     */
+    @GetMapping("/stats/currency")
+    public ResponseEntity<Map<String, Object>> getCurrencyStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getCurrencyStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取排行榜统计
+     */
+    @GetMapping("/stats/leaderboard")
+    public ResponseEntity<Map<String, Object>> getLeaderboardStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getLeaderboardStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取推送连接统计
+     */
+    @GetMapping("/stats/push")
+    public ResponseEntity<Map<String, Object>> getPushStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getPushStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取SQL执行追踪统计（sortBy: total、count、avg、p99、max、errors）
+     */
+    @GetMapping("/stats/queries")
+    public ResponseEntity<Map<String, Object>> getQueryStats(
+            @RequestHeader("Authorization") String token,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "total") String sortBy) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getQueryStats(token, limit, sortBy);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取用户名/邮箱过滤器状态
+     */
+    @GetMapping("/stats/name-availability")
+    public ResponseEntity<Map<String, Object>> getNameAvailabilityStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.getNameAvailabilityStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 清空SQL执行追踪统计
+     */
+    @DeleteMapping("/stats/queries")
+    public ResponseEntity<Map<String, Object>> resetQueryStats(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        Map<String, Object> response = adminService.resetQueryStats(token);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * 封禁用户
      */
@@ -0,0 +1,38 @@
+package com.lby.moyuultimate.controller;
+
+import com.lby.moyuultimate.dto.AuthResponse;
+import com.lby.moyuultimate.service.ApiOutcome;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Map;
+
+/**
+ * 按响应体记录认证与管理接口的结果（服务层未标记凭证错误或异常时）：
+ * AuthResponse.success 为 false 或 Map 中带 error 视为业务拒绝
+ */
+@RestControllerAdvice(assignableTypes = {AuthController.class, AdminController.class})
+public class ApiOutcomeAdvice implements ResponseBodyAdvice<Object> {
+    
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+    
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof AuthResponse authResponse) {
+            ApiOutcome.markIfAbsent(Boolean.TRUE.equals(authResponse.getSuccess()) ? ApiOutcome.SUCCESS : ApiOutcome.REJECTED);
+        } else if (body instanceof Map<?, ?> map) {
+            ApiOutcome.markIfAbsent(map.containsKey("error") ? ApiOutcome.REJECTED : ApiOutcome.SUCCESS);
+        }
+        return body;
+    }
+}
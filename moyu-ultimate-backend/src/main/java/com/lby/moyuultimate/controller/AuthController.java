@@ -4,12 +4,15 @@ import com.lby.moyuultimate.dto.AuthResponse;
 import com.lby.moyuultimate.dto.LoginRequest;
 import com.lby.moyuultimate.dto.RegisterRequest;
 import com.lby.moyuultimate.service.AuthService;
+import com.lby.moyuultimate.service.LoginRateLimiter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/auth")
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
@@ -18,11 +21,16 @@ public class AuthController {
     @Autowired
     private AuthService authService;
     
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    
     /**
      * 用户登录
      */
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        // 限流在查库和密码校验之前
+        loginRateLimiter.checkLogin(loginRequest.getUsername(), request.getRemoteAddr());
         AuthResponse response = authService.login(loginRequest);
         return ResponseEntity.ok(response);
     }
@@ -31,11 +39,25 @@ public class AuthController {
      * 用户注册
      */
     @PostMapping("/register")
-    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest registerRequest) {
+    public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest registerRequest,
+                                                 HttpServletRequest request) {
+        loginRateLimiter.checkRegister(request.getRemoteAddr());
         AuthResponse response = authService.register(registerRequest);
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 用户名是否可能可用（注册表单输入时的提示，按IP限流）
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Object>> checkAvailability(
+            @RequestParam(required = false) String username,
+            HttpServletRequest request) {
+        loginRateLimiter.checkAvailability(request.getRemoteAddr());
+        Map<String, Object> response = authService.checkAvailability(username);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * 用户登出
      */
@@ -70,6 +92,20 @@ public class AuthController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 在线心跳（客户端定期调用以维持在线状态）
+     */
+    @PostMapping("/heartbeat")
+    public ResponseEntity<AuthResponse> heartbeat(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        AuthResponse response = authService.heartbeat(token);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * 健康检查
      */
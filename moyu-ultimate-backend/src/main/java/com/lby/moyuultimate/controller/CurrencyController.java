@@ -0,0 +1,30 @@
+package com.lby.moyuultimate.controller;
+
+import com.lby.moyuultimate.service.CurrencyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/game/currency")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class CurrencyController {
+    
+    @Autowired
+    private CurrencyService currencyService;
+    
+    /**
+     * 获取当前玩家余额
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getWallet(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        return ResponseEntity.ok(currencyService.getWallet(token));
+    }
+}
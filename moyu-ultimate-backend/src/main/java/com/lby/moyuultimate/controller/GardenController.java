@@ -0,0 +1,113 @@
+package com.lby.moyuultimate.controller;
+
+import com.lby.moyuultimate.dto.FruitSellRequest;
+import com.lby.moyuultimate.dto.GardenMoveRequest;
+import com.lby.moyuultimate.dto.GardenPlantRequest;
+import com.lby.moyuultimate.service.GardenService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/game/garden")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class GardenController {
+    
+    @Autowired
+    private GardenService gardenService;
+    
+    /**
+     * 获取家园
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getGarden(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return ResponseEntity.ok(gardenService.getGarden(token));
+    }
+    
+    /**
+     * 合并或移动物品
+     */
+    @PostMapping("/move")
+    public ResponseEntity<Map<String, Object>> move(
+            @Valid @RequestBody GardenMoveRequest request,
+            @RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return ResponseEntity.ok(gardenService.move(token, request));
+    }
+    
+    /**
+     * 收获场上所有果实和种子
+     */
+    @PostMapping("/harvest-fruits")
+    public ResponseEntity<Map<String, Object>> harvestFruits(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return ResponseEntity.ok(gardenService.harvestFruits(token));
+    }
+    
+    /**
+     * 从果树采摘果实（all=false时每棵树采摘一颗）
+     */
+    @PostMapping("/harvest-trees")
+    public ResponseEntity<Map<String, Object>> harvestTrees(
+            @RequestParam(defaultValue = "true") boolean all,
+            @RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return ResponseEntity.ok(gardenService.harvestTrees(token, all));
+    }
+    
+    /**
+     * 从背包放置物品
+     */
+    @PostMapping("/plant")
+    public ResponseEntity<Map<String, Object>> plant(
+            @Valid @RequestBody GardenPlantRequest request,
+            @RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return ResponseEntity.ok(gardenService.plant(token, request));
+    }
+    
+    /**
+     * 生成种子
+     */
+    @PostMapping("/seed")
+    public ResponseEntity<Map<String, Object>> generateSeed(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return ResponseEntity.ok(gardenService.generateSeed(token));
+    }
+    
+    /**
+     * 批量出售背包中的果实
+     */
+    @PostMapping("/sell-fruits")
+    public ResponseEntity<Map<String, Object>> sellFruits(
+            @Valid @RequestBody FruitSellRequest request,
+            @RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return ResponseEntity.ok(gardenService.sellFruits(token, request));
+    }
+}
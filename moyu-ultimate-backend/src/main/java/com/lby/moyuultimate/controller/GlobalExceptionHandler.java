@@ -0,0 +1,35 @@
+package com.lby.moyuultimate.controller;
+
+import com.lby.moyuultimate.dto.AuthResponse;
+import com.lby.moyuultimate.service.ApiOutcome;
+import com.lby.moyuultimate.service.LoginThrottledException;
+import com.lby.moyuultimate.service.PasswordHashingBusyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+    
+    /**
+     * 密码哈希线程池繁忙，返回503让客户端稍后重试
+     */
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<AuthResponse> handleHashingBusy(PasswordHashingBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(new AuthResponse(false, e.getMessage()));
+    }
+    
+    /**
+     * 登录或注册尝试过于频繁，返回429和需要等待的秒数
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<AuthResponse> handleLoginThrottled(LoginThrottledException e) {
+        ApiOutcome.throttled();
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(e.getRetryAfterSeconds()))
+                .body(new AuthResponse(false, e.getMessage()));
+    }
+}
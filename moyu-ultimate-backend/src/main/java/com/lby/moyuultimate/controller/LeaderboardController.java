@@ -0,0 +1,53 @@
+package com.lby.moyuultimate.controller;
+
+import com.lby.moyuultimate.service.LeaderboardService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/game/leaderboard")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class LeaderboardController {
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    /**
+     * 获取排行榜（board：gold、silver、crystal、tree-level）
+     */
+    @GetMapping("/{board}")
+    public ResponseEntity<Map<String, Object>> getTop(
+            @PathVariable String board,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(leaderboardService.getTop(board, offset, limit));
+    }
+    
+    /**
+     * 获取当前玩家的名次
+     */
+    @GetMapping("/{board}/me")
+    public ResponseEntity<Map<String, Object>> getMyRank(
+            @PathVariable String board,
+            @RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return ResponseEntity.ok(leaderboardService.getMyRank(token, board));
+    }
+    
+    /**
+     * 获取好友之间的排行
+     */
+    @GetMapping("/{board}/friends")
+    public ResponseEntity<Map<String, Object>> getFriendRanks(
+            @PathVariable String board,
+            @RequestParam List<Long> userIds) {
+        return ResponseEntity.ok(leaderboardService.getRanksAmong(board, userIds));
+    }
+}
@@ -0,0 +1,83 @@
+package com.lby.moyuultimate.controller;
+
+import com.lby.moyuultimate.service.PushService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+/**
+ * 服务端推送（SSE）订阅接口
+ * 浏览器的 EventSource 不能设置请求头，先用请求头中的token换取短期一次性票据，
+ * 订阅时只在查询参数中传递票据，token不会出现在URL、访问日志和浏览器历史中
+ */
+@RestController
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"})
+public class PushController {
+    
+    @Autowired
+    private PushService pushService;
+    
+    /**
+     * 签发玩家订阅票据
+     */
+    @PostMapping("/game/events/ticket")
+    public ResponseEntity<Map<String, Object>> issueUserTicket(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        return ticketResponse(pushService.issueUserTicket(token));
+    }
+    
+    /**
+     * 玩家订阅：tree-ripe、currency-changed、banned 等事件
+     */
+    @GetMapping(value = "/game/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeUser(@RequestParam String ticket) {
+        SseEmitter emitter = pushService.subscribeUser(ticket);
+        if (emitter == null) {
+            // 连接数已满返回503，客户端稍后重连；否则为票据无效
+            return ResponseEntity.status(pushService.isFull() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    /**
+     * 签发管理员订阅票据
+     */
+    @PostMapping("/admin/events/ticket")
+    public ResponseEntity<Map<String, Object>> issueAdminTicket(@RequestHeader("Authorization") String token) {
+        // 移除"Bearer "前缀
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        
+        return ticketResponse(pushService.issueAdminTicket(token));
+    }
+    
+    /**
+     * 管理员订阅：user-online、user-ban、user-deleted 事件
+     */
+    @GetMapping(value = "/admin/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeAdmin(@RequestParam String ticket) {
+        SseEmitter emitter = pushService.subscribeAdmin(ticket);
+        if (emitter == null) {
+            // 连接数已满返回503，客户端稍后重连；否则为票据无效
+            return ResponseEntity.status(pushService.isFull() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+    
+    private ResponseEntity<Map<String, Object>> ticketResponse(String ticket) {
+        if (ticket == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("success", false, "message", "token无效"));
+        }
+        return ResponseEntity.ok(Map.of("success", true, "ticket", ticket));
+    }
+}
@@ -0,0 +1,27 @@
+package com.lby.moyuultimate.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.Map;
+
+public class FruitSellRequest {
+    
+    @NotEmpty(message = "出售的果实不能为空")
+    private Map<Integer, Long> fruits; // 果实等级 -> 出售数量
+    
+    // 构造函数
+    public FruitSellRequest() {}
+    
+    public FruitSellRequest(Map<Integer, Long> fruits) {
+        this.fruits = fruits;
+    }
+    
+    // Getter和Setter方法
+    public Map<Integer, Long> getFruits() {
+        return fruits;
+    }
+    
+    public void setFruits(Map<Integer, Long> fruits) {
+        this.fruits = fruits;
+    }
+}
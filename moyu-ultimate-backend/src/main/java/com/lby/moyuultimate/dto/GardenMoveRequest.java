@@ -0,0 +1,61 @@
+package com.lby.moyuultimate.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+public class GardenMoveRequest {
+    
+    @NotNull(message = "源格子行号不能为空")
+    private Integer sx;
+    
+    @NotNull(message = "源格子列号不能为空")
+    private Integer sy;
+    
+    @NotNull(message = "目标格子行号不能为空")
+    private Integer dx;
+    
+    @NotNull(message = "目标格子列号不能为空")
+    private Integer dy;
+    
+    // 构造函数
+    public GardenMoveRequest() {}
+    
+    public GardenMoveRequest(Integer sx, Integer sy, Integer dx, Integer dy) {
+        this.sx = sx;
+        this.sy = sy;
+        this.dx = dx;
+        this.dy = dy;
+    }
+    
+    // Getter和Setter方法
+    public Integer getSx() {
+        return sx;
+    }
+    
+    public void setSx(Integer sx) {
+        this.sx = sx;
+    }
+    
+    public Integer getSy() {
+        return sy;
+    }
+    
+    public void setSy(Integer sy) {
+        this.sy = sy;
+    }
+    
+    public Integer getDx() {
+        return dx;
+    }
+    
+    public void setDx(Integer dx) {
+        this.dx = dx;
+    }
+    
+    public Integer getDy() {
+        return dy;
+    }
+    
+    public void setDy(Integer dy) {
+        this.dy = dy;
+    }
+}
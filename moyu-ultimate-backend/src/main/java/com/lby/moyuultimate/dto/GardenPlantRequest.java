@@ -0,0 +1,61 @@
+package com.lby.moyuultimate.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public class GardenPlantRequest {
+    
+    @NotBlank(message = "物品类别不能为空")
+    private String category; // "seed"、"tree" 或 "fruit"
+    
+    private Integer level; // 种子可为空
+    
+    @NotNull(message = "格子行号不能为空")
+    private Integer x;
+    
+    @NotNull(message = "格子列号不能为空")
+    private Integer y;
+    
+    // 构造函数
+    public GardenPlantRequest() {}
+    
+    public GardenPlantRequest(String category, Integer level, Integer x, Integer y) {
+        this.category = category;
+        this.level = level;
+        this.x = x;
+        this.y = y;
+    }
+    
+    // Getter和Setter方法
+    public String getCategory() {
+        return category;
+    }
+    
+    public void setCategory(String category) {
+        this.category = category;
+    }
+    
+    public Integer getLevel() {
+        return level;
+    }
+    
+    public void setLevel(Integer level) {
+        this.level = level;
+    }
+    
+    public Integer getX() {
+        return x;
+    }
+    
+    public void setX(Integer x) {
+        this.x = x;
+    }
+    
+    public Integer getY() {
+        return y;
+    }
+    
+    public void setY(Integer y) {
+        this.y = y;
+    }
+}
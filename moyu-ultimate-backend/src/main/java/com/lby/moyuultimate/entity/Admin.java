@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 public class Admin {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "admin_id")
+    @TableGenerator(name = "admin_id", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+            valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = IdSequences.ADMINS,
+            allocationSize = IdSequences.ALLOCATION_SIZE)
     private Long id;
     
     @NotBlank(message = "管理员用户名不能为空")
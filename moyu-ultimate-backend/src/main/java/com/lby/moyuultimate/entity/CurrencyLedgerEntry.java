@@ -0,0 +1,70 @@
+package com.lby.moyuultimate.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 货币账本：只追加不修改，每次余额变动一行
+ * 由 CurrencyService 批量插入，这里只用于建表
+ */
+@Entity
+@Table(name = "currency_ledger", indexes = {
+        @Index(name = "idx_currency_ledger_user", columnList = "user_id, id")
+})
+public class CurrencyLedgerEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private CurrencyType currency;
+    
+    @Column(nullable = false)
+    private Long delta;
+    
+    @Column(name = "balance_after", nullable = false)
+    private Long balanceAfter;
+    
+    @Column(length = 64)
+    private String reason;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // 构造函数
+    public CurrencyLedgerEntry() {}
+    
+    // Getter方法
+    public Long getId() {
+        return id;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public CurrencyType getCurrency() {
+        return currency;
+    }
+    
+    public Long getDelta() {
+        return delta;
+    }
+    
+    public Long getBalanceAfter() {
+        return balanceAfter;
+    }
+    
+    public String getReason() {
+        return reason;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,14 @@
+package com.lby.moyuultimate.entity;
+
+public enum CurrencyType {
+    GOLD,    // 金币
+    SILVER,  // 银币
+    CRYSTAL; // 水晶
+    
+    /**
+     * 在 player_wallets 表中对应的列名
+     */
+    public String column() {
+        return name().toLowerCase();
+    }
+}
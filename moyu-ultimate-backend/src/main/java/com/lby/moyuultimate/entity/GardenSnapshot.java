@@ -0,0 +1,63 @@
+package com.lby.moyuultimate.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 家园存档：每个玩家一行，整个家园编码为一个BLOB（格式见 GardenCodec）
+ * 由 GardenService 批量 upsert 写入，这里只用于建表和读取
+ */
+@Entity
+@Table(name = "garden_snapshots")
+public class GardenSnapshot {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "format_version", nullable = false)
+    private Integer formatVersion;
+    
+    @Lob
+    @Column(name = "data", nullable = false, columnDefinition = "BLOB")
+    private byte[] data;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // 构造函数
+    public GardenSnapshot() {}
+    
+    // Getter和Setter方法
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Integer getFormatVersion() {
+        return formatVersion;
+    }
+    
+    public void setFormatVersion(Integer formatVersion) {
+        this.formatVersion = formatVersion;
+    }
+    
+    public byte[] getData() {
+        return data;
+    }
+    
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.lby.moyuultimate.entity;
+
+import java.util.Map;
+
+/**
+ * 主键号段表 id_sequences：每个实体一行，Hibernate 每次取一段（ALLOCATION_SIZE 个）ID 在内存中分配
+ * 与 IDENTITY 不同，插入前即可得到主键，因此支持 JDBC 批量插入
+ */
+public final class IdSequences {
+    
+    public static final String TABLE = "id_sequences";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+    
+    public static final String USERS = "users";
+    public static final String USER_BANS = "user_bans";
+    public static final String ADMINS = "admins";
+    
+    // 号段名 -> 使用该号段的表
+    public static final Map<String, String> TABLES = Map.of(
+            USERS, "users",
+            USER_BANS, "user_bans",
+            ADMINS, "admins");
+    
+    private IdSequences() {}
+}
@@ -0,0 +1,55 @@
+package com.lby.moyuultimate.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 排行榜快照：每个榜单每个玩家一行，由 LeaderboardService 定时批量 upsert，启动时用于重建内存排行
+ */
+@Entity
+@Table(name = "leaderboard_entries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_leaderboard_board_user", columnNames = {"board", "user_id"})
+})
+public class LeaderboardEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private LeaderboardType board;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private Long score;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // 构造函数
+    public LeaderboardEntry() {}
+    
+    // Getter方法
+    public Long getId() {
+        return id;
+    }
+    
+    public LeaderboardType getBoard() {
+        return board;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public Long getScore() {
+        return score;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,15 @@
+package com.lby.moyuultimate.entity;
+
+public enum LeaderboardType {
+    GOLD,        // 金币余额
+    SILVER,      // 银币余额
+    CRYSTAL,     // 水晶余额
+    TREE_LEVEL;  // 历史最高果树等级
+    
+    /**
+     * 货币对应的余额排行榜
+     */
+    public static LeaderboardType of(CurrencyType currency) {
+        return valueOf(currency.name());
+    }
+}
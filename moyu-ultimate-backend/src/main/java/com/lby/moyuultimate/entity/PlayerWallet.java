@@ -0,0 +1,72 @@
+package com.lby.moyuultimate.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 玩家余额：每个玩家一行，由 CurrencyService 根据账本批量回写
+ */
+@Entity
+@Table(name = "player_wallets")
+public class PlayerWallet {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long gold = 0L;
+    
+    @Column(nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long silver = 0L;
+    
+    @Column(nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long crystal = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // 构造函数
+    public PlayerWallet() {}
+    
+    // Getter和Setter方法
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public Long getGold() {
+        return gold;
+    }
+    
+    public void setGold(Long gold) {
+        this.gold = gold;
+    }
+    
+    public Long getSilver() {
+        return silver;
+    }
+    
+    public void setSilver(Long silver) {
+        this.silver = silver;
+    }
+    
+    public Long getCrystal() {
+        return crystal;
+    }
+    
+    public void setCrystal(Long crystal) {
+        this.crystal = crystal;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
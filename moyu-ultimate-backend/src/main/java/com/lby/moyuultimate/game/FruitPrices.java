@@ -0,0 +1,30 @@
+package com.lby.moyuultimate.game;
+
+/**
+ * 果实售价表（与前端 fruits.ts 的 fruitValues 一致），出售所得为灵晶
+ */
+public final class FruitPrices {
+    
+    private static final long[] VALUES = {
+            100L, 220L, 484L, 1064L, 2342L, 5153L, 11338L, 24943L, 54875L,
+            120726L, 265597L, 584314L, 1285491L, 2828080L, 6221776L, 13687907L
+    };
+    
+    private FruitPrices() {}
+    
+    public static long valueOf(int level) {
+        return VALUES[level];
+    }
+    
+    /**
+     * 按等级计算总价，counts下标为果实等级；溢出时抛出 ArithmeticException
+     * 固定遍历全部等级，耗时与出售的种类数无关
+     */
+    public static long totalValue(long[] counts) {
+        long total = 0;
+        for (int level = 0; level <= GardenRules.MAX_FRUIT_LEVEL; level++) {
+            total = Math.addExact(total, Math.multiplyExact(counts[level], VALUES[level]));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,105 @@
+package com.lby.moyuultimate.game;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单个玩家的家园状态，全部使用基本类型数组保存
+ * 对同一家园的读写需持有其锁（getLock）；锁内可能访问数据库（例如出售果实时加载钱包）
+ */
+public final class Garden {
+    
+    private final long ownerId;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    // 格子编码（见 GardenCell），下标为 x * COLS + y
+    final int[] cells = new int[GardenRules.CELLS];
+    
+    // 果树重新结果完成的时间（毫秒），0表示未在结果中
+    final long[] growEndMillis = new long[GardenRules.CELLS];
+    
+    // 背包物品数量（见 ItemCategory）
+    final long[] backpack = new long[ItemCategory.BACKPACK_SLOTS];
+    
+    // 最早一棵结果中的果树的完成时间，0表示没有结果中的果树
+    long nextRipeMillis;
+    
+    // 已登记到时间轮的结果提醒时间，0表示未登记
+    private long scheduledRipeMillis;
+    
+    // 每次修改递增，用于判断家园是否需要保存
+    long version;
+    
+    // 已写入数据库的版本
+    private long savedVersion;
+    
+    // 最后一次被玩家操作的时间，用于淘汰空闲家园
+    private long lastAccessMillis = System.currentTimeMillis();
+    
+    // 已从内存淘汰，持有旧引用的调用方需要重新获取
+    private boolean evicted;
+    
+    public Garden(long ownerId) {
+        this.ownerId = ownerId;
+    }
+    
+    public long getOwnerId() {
+        return ownerId;
+    }
+    
+    public ReentrantLock getLock() {
+        return lock;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public long getNextRipeMillis() {
+        return nextRipeMillis;
+    }
+    
+    public long getScheduledRipeMillis() {
+        return scheduledRipeMillis;
+    }
+    
+    public void setScheduledRipeMillis(long scheduledRipeMillis) {
+        this.scheduledRipeMillis = scheduledRipeMillis;
+    }
+    
+    public boolean isDirty() {
+        return version != savedVersion;
+    }
+    
+    public void markSaved(long savedVersion) {
+        this.savedVersion = Math.max(this.savedVersion, savedVersion);
+    }
+    
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
+    
+    public void touch(long now) {
+        this.lastAccessMillis = now;
+    }
+    
+    public boolean isEvicted() {
+        return evicted;
+    }
+    
+    public void markEvicted() {
+        this.evicted = true;
+    }
+    
+    public int cellAt(int x, int y) {
+        return cells[GardenRules.index(x, y)];
+    }
+    
+    public long growEndAt(int x, int y) {
+        return growEndMillis[GardenRules.index(x, y)];
+    }
+    
+    public long backpackCount(int slot) {
+        return backpack[slot];
+    }
+}
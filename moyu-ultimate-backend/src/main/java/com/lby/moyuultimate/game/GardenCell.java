@@ -0,0 +1,52 @@
+package com.lby.moyuultimate.game;
+
+/**
+ * 格子编码：一个int保存物品种类、等级和果树剩余果实数
+ * bit 0-1 种类，bit 2-6 等级，bit 8-13 剩余果实数
+ */
+public final class GardenCell {
+    
+    public static final int EMPTY = 0;
+    public static final int SEED = 1;
+    public static final int TREE = 2;
+    public static final int FRUIT = 3;
+    
+    private GardenCell() {}
+    
+    public static int seed() {
+        return SEED;
+    }
+    
+    public static int tree(int level, int fruits) {
+        return TREE | (level << 2) | (fruits << 8);
+    }
+    
+    public static int fruit(int level) {
+        return FRUIT | (level << 2);
+    }
+    
+    public static int kind(int cell) {
+        return cell & 0x3;
+    }
+    
+    public static int level(int cell) {
+        return (cell >>> 2) & 0x1F;
+    }
+    
+    public static int fruits(int cell) {
+        return (cell >>> 8) & 0x3F;
+    }
+    
+    public static int withFruits(int cell, int fruits) {
+        return (cell & ~(0x3F << 8)) | (fruits << 8);
+    }
+    
+    public static String kindName(int kind) {
+        return switch (kind) {
+            case SEED -> "seed";
+            case TREE -> "tree";
+            case FRUIT -> "fruit";
+            default -> "empty";
+        };
+    }
+}
@@ -0,0 +1,164 @@
+package com.lby.moyuultimate.game;
+
+import java.util.Arrays;
+
+import static com.lby.moyuultimate.game.GardenRules.CELLS;
+
+/**
+ * 家园二进制存档格式（版本1）：
+ * <pre>
+ * [版本 1字节][基准时间 8字节]
+ * [格子 120字节：bit 0-1 种类，bit 2-5 等级]
+ * [每棵果树依次：剩余果实数 varint，结果完成时间 varint（0表示未在结果中，否则为相对基准时间的zigzag差值+1）]
+ * [背包非零项数 varint，每项：位置 varint，数量 varint]
+ * </pre>
+ */
+public final class GardenCodec {
+    
+    public static final byte FORMAT_VERSION = 1;
+    
+    private static final int HEADER_BYTES = 1 + Long.BYTES;
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final int MAX_BYTES = HEADER_BYTES + CELLS
+            + CELLS * 2 * MAX_VARINT_BYTES
+            + MAX_VARINT_BYTES + ItemCategory.BACKPACK_SLOTS * 2 * MAX_VARINT_BYTES;
+    
+    private GardenCodec() {}
+    
+    /**
+     * 编码家园，baseMillis一般取保存时间，使果树计时只需保存较小的差值（调用方需持有家园锁）
+     */
+    public static byte[] encode(Garden garden, long baseMillis) {
+        byte[] buf = new byte[MAX_BYTES];
+        buf[0] = FORMAT_VERSION;
+        for (int i = 0; i < Long.BYTES; i++) {
+            buf[1 + i] = (byte) (baseMillis >>> (56 - 8 * i));
+        }
+        int pos = HEADER_BYTES;
+        for (int i = 0; i < CELLS; i++) {
+            int cell = garden.cells[i];
+            buf[pos++] = (byte) (GardenCell.kind(cell) | (GardenCell.level(cell) << 2));
+        }
+        for (int i = 0; i < CELLS; i++) {
+            int cell = garden.cells[i];
+            if (GardenCell.kind(cell) != GardenCell.TREE) {
+                continue;
+            }
+            long growEnd = garden.growEndMillis[i];
+            pos = writeVarLong(buf, pos, GardenCell.fruits(cell));
+            pos = writeVarLong(buf, pos, growEnd == 0 ? 0 : zigZag(growEnd - baseMillis) + 1);
+        }
+        int nonZero = 0;
+        for (long count : garden.backpack) {
+            if (count != 0) {
+                nonZero++;
+            }
+        }
+        pos = writeVarLong(buf, pos, nonZero);
+        for (int slot = 0; slot < ItemCategory.BACKPACK_SLOTS; slot++) {
+            if (garden.backpack[slot] != 0) {
+                pos = writeVarLong(buf, pos, slot);
+                pos = writeVarLong(buf, pos, garden.backpack[slot]);
+            }
+        }
+        return Arrays.copyOf(buf, pos);
+    }
+    
+    /**
+     * 解码家园存档，格式不正确时抛出 IllegalArgumentException
+     */
+    public static Garden decode(long ownerId, byte[] data) {
+        if (data == null || data.length < HEADER_BYTES + CELLS) {
+            throw new IllegalArgumentException("家园存档长度不正确");
+        }
+        if (data[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的家园存档版本：" + data[0]);
+        }
+        long baseMillis = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            baseMillis = (baseMillis << 8) | (data[1 + i] & 0xFF);
+        }
+        
+        Garden garden = new Garden(ownerId);
+        Reader reader = new Reader(data, HEADER_BYTES + CELLS);
+        for (int i = 0; i < CELLS; i++) {
+            int packed = data[HEADER_BYTES + i];
+            int kind = packed & 0x3;
+            int level = (packed >>> 2) & 0xF;
+            switch (kind) {
+                case GardenCell.SEED -> garden.cells[i] = GardenCell.seed();
+                case GardenCell.FRUIT -> garden.cells[i] = GardenCell.fruit(level);
+                case GardenCell.TREE -> {
+                    int fruits = (int) reader.varLong();
+                    if (fruits > GardenRules.maxFruits(level)) {
+                        throw new IllegalArgumentException("家园存档果实数不正确");
+                    }
+                    garden.cells[i] = GardenCell.tree(level, fruits);
+                    long encoded = reader.varLong();
+                    if (encoded != 0) {
+                        long growEnd = baseMillis + unZigZag(encoded - 1);
+                        garden.growEndMillis[i] = growEnd;
+                        if (garden.nextRipeMillis == 0 || growEnd < garden.nextRipeMillis) {
+                            garden.nextRipeMillis = growEnd;
+                        }
+                    }
+                }
+                default -> { }
+            }
+        }
+        long nonZero = reader.varLong();
+        for (long n = 0; n < nonZero; n++) {
+            long slot = reader.varLong();
+            if (slot >= ItemCategory.BACKPACK_SLOTS) {
+                throw new IllegalArgumentException("家园存档背包位置不正确");
+            }
+            garden.backpack[(int) slot] = reader.varLong();
+        }
+        if (reader.pos != data.length) {
+            throw new IllegalArgumentException("家园存档长度不正确");
+        }
+        return garden;
+    }
+    
+    private static int writeVarLong(byte[] buf, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+        return pos;
+    }
+    
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+        
+        Reader(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+        
+        long varLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= data.length) {
+                    throw new IllegalArgumentException("家园存档长度不正确");
+                }
+                byte b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("家园存档varint不正确");
+        }
+    }
+}
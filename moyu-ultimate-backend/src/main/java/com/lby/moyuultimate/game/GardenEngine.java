@@ -0,0 +1,242 @@
+package com.lby.moyuultimate.game;
+
+import static com.lby.moyuultimate.game.GardenRules.CELLS;
+import static com.lby.moyuultimate.game.GardenRules.COLS;
+import static com.lby.moyuultimate.game.GardenRules.ROWS;
+
+/**
+ * 家园操作（与前端 garden.ts 中的 mergeOrSwapObjects、harvestFruits 等逻辑一致）
+ * 所有方法只读写家园的基本类型数组，不分配对象；调用方需持有该家园的锁。
+ */
+public final class GardenEngine {
+    
+    // 果树周围8个方向（与前端生成果实的顺序一致）
+    private static final int[] NEIGHBOR_DX = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] NEIGHBOR_DY = {-1, 0, 1, -1, 1, -1, 0, 1};
+    
+    private GardenEngine() {}
+    
+    /**
+     * 合并或移动物品：同类同级合成升级，两个种子合成0级果树；否则移动到空格或交换
+     */
+    public static MoveResult move(Garden garden, int sx, int sy, int dx, int dy) {
+        if (!GardenRules.inBounds(sx, sy) || !GardenRules.inBounds(dx, dy) || (sx == dx && sy == dy)) {
+            return MoveResult.NONE;
+        }
+        int src = GardenRules.index(sx, sy);
+        int dst = GardenRules.index(dx, dy);
+        int source = garden.cells[src];
+        int dest = garden.cells[dst];
+        int sourceKind = GardenCell.kind(source);
+        if (sourceKind == GardenCell.EMPTY) {
+            return MoveResult.NONE;
+        }
+        
+        int destKind = GardenCell.kind(dest);
+        int merged = GardenCell.EMPTY;
+        if (sourceKind == destKind) {
+            int level = GardenCell.level(dest);
+            if (sourceKind == GardenCell.TREE && level == GardenCell.level(source) && level < GardenRules.MAX_TREE_LEVEL) {
+                merged = GardenCell.tree(level + 1, GardenRules.maxFruits(level + 1));
+            } else if (sourceKind == GardenCell.FRUIT && level == GardenCell.level(source) && level < GardenRules.MAX_FRUIT_LEVEL) {
+                merged = GardenCell.fruit(level + 1);
+            } else if (sourceKind == GardenCell.SEED) {
+                merged = GardenCell.tree(0, GardenRules.maxFruits(0));
+            }
+        }
+        
+        garden.version++;
+        if (merged != GardenCell.EMPTY) {
+            garden.cells[dst] = merged;
+            garden.growEndMillis[dst] = 0;
+            garden.cells[src] = GardenCell.EMPTY;
+            garden.growEndMillis[src] = 0;
+            return MoveResult.MERGED;
+        }
+        
+        // 移动或交换，果树的结果计时随格子一起移动
+        long sourceGrowEnd = garden.growEndMillis[src];
+        garden.cells[dst] = source;
+        garden.cells[src] = dest;
+        garden.growEndMillis[src] = garden.growEndMillis[dst];
+        garden.growEndMillis[dst] = sourceGrowEnd;
+        return destKind == GardenCell.EMPTY ? MoveResult.MOVED : MoveResult.SWAPPED;
+    }
+    
+    /**
+     * 收获场上所有果实和种子到背包，返回收获数量
+     */
+    public static int harvestFruits(Garden garden) {
+        int harvested = 0;
+        for (int i = 0; i < CELLS; i++) {
+            int cell = garden.cells[i];
+            int kind = GardenCell.kind(cell);
+            if (kind == GardenCell.FRUIT) {
+                garden.backpack[ItemCategory.FRUIT.slot(GardenCell.level(cell))]++;
+            } else if (kind == GardenCell.SEED) {
+                garden.backpack[ItemCategory.SEED.slot(0)]++;
+            } else {
+                continue;
+            }
+            garden.cells[i] = GardenCell.EMPTY;
+            harvested++;
+        }
+        if (harvested > 0) {
+            garden.version++;
+        }
+        return harvested;
+    }
+    
+    /**
+     * 从所有果树采摘果实，每棵树最多采摘perTreeLimit颗，果实放到树周围的空格（周围已满则放到任意空格）
+     * 空格用完时停止采摘，未采摘的果实留在树上；果树采空后开始重新结果。返回采摘数量
+     */
+    public static int harvestTrees(Garden garden, int perTreeLimit, long now) {
+        refresh(garden, now);
+        int harvested = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if (GardenCell.kind(garden.cells[i]) != GardenCell.TREE) {
+                continue;
+            }
+            int cell = garden.cells[i];
+            int fruits = GardenCell.fruits(cell);
+            int level = GardenCell.level(cell);
+            int picked = 0;
+            while (picked < perTreeLimit && picked < fruits) {
+                if (!placeFruitNear(garden, i / COLS, i % COLS, level)) {
+                    break;
+                }
+                picked++;
+            }
+            if (picked == 0) {
+                continue;
+            }
+            harvested += picked;
+            garden.cells[i] = GardenCell.withFruits(cell, fruits - picked);
+            if (fruits - picked == 0) {
+                long growEnd = now + GardenRules.regenMillis(level);
+                garden.growEndMillis[i] = growEnd;
+                if (garden.nextRipeMillis == 0 || growEnd < garden.nextRipeMillis) {
+                    garden.nextRipeMillis = growEnd;
+                }
+            }
+        }
+        if (harvested > 0) {
+            garden.version++;
+        }
+        return harvested;
+    }
+    
+    /**
+     * 从背包取出一个物品放到指定空格子
+     */
+    public static boolean plant(Garden garden, ItemCategory category, int level, int x, int y) {
+        int slot = category.slot(level);
+        if (slot < 0 || !GardenRules.inBounds(x, y) || garden.backpack[slot] <= 0) {
+            return false;
+        }
+        int i = GardenRules.index(x, y);
+        if (garden.cells[i] != GardenCell.EMPTY) {
+            return false;
+        }
+        garden.cells[i] = switch (category) {
+            case SEED -> GardenCell.seed();
+            case TREE -> GardenCell.tree(level, GardenRules.maxFruits(level));
+            case FRUIT -> GardenCell.fruit(level);
+        };
+        garden.growEndMillis[i] = 0;
+        garden.backpack[slot]--;
+        garden.version++;
+        return true;
+    }
+    
+    /**
+     * 背包中各等级果实是否足够（counts下标为果实等级）
+     */
+    public static boolean canRemoveFruits(Garden garden, long[] counts) {
+        for (int level = 0; level <= GardenRules.MAX_FRUIT_LEVEL; level++) {
+            if (counts[level] < 0 || counts[level] > garden.backpack[ItemCategory.FRUIT.slot(level)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 从背包一次扣除多个等级的果实（counts下标为果实等级），任一等级数量不足时不做任何修改
+     */
+    public static boolean removeFruits(Garden garden, long[] counts) {
+        if (!canRemoveFruits(garden, counts)) {
+            return false;
+        }
+        for (int level = 0; level <= GardenRules.MAX_FRUIT_LEVEL; level++) {
+            garden.backpack[ItemCategory.FRUIT.slot(level)] -= counts[level];
+        }
+        garden.version++;
+        return true;
+    }
+    
+    /**
+     * 在第一个空格子生成种子
+     */
+    public static boolean generateSeed(Garden garden) {
+        for (int i = 0; i < CELLS; i++) {
+            if (garden.cells[i] == GardenCell.EMPTY) {
+                garden.cells[i] = GardenCell.seed();
+                garden.growEndMillis[i] = 0;
+                garden.version++;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 按时间戳补满已到结果时间的果树，返回本次结果的果树数量
+     * 只在读取或修改家园时调用；没有到期的果树时直接返回，不扫描格子
+     */
+    public static int refresh(Garden garden, long now) {
+        if (garden.nextRipeMillis == 0 || now < garden.nextRipeMillis) {
+            return 0;
+        }
+        int ripened = 0;
+        long next = 0;
+        for (int i = 0; i < CELLS; i++) {
+            long growEnd = garden.growEndMillis[i];
+            if (growEnd == 0) {
+                continue;
+            }
+            if (now >= growEnd) {
+                int cell = garden.cells[i];
+                garden.cells[i] = GardenCell.withFruits(cell, GardenRules.maxFruits(GardenCell.level(cell)));
+                garden.growEndMillis[i] = 0;
+                ripened++;
+            } else if (next == 0 || growEnd < next) {
+                next = growEnd;
+            }
+        }
+        garden.nextRipeMillis = next;
+        return ripened;
+    }
+    
+    private static boolean placeFruitNear(Garden garden, int treeX, int treeY, int level) {
+        for (int n = 0; n < NEIGHBOR_DX.length; n++) {
+            int fx = treeX + NEIGHBOR_DX[n];
+            int fy = treeY + NEIGHBOR_DY[n];
+            if (fx >= 0 && fx < ROWS && fy >= 0 && fy < COLS) {
+                int i = GardenRules.index(fx, fy);
+                if (garden.cells[i] == GardenCell.EMPTY) {
+                    garden.cells[i] = GardenCell.fruit(level);
+                    return true;
+                }
+            }
+        }
+        for (int i = 0; i < CELLS; i++) {
+            if (garden.cells[i] == GardenCell.EMPTY) {
+                garden.cells[i] = GardenCell.fruit(level);
+                return true;
+            }
+        }
+        return false;
+    }
+}
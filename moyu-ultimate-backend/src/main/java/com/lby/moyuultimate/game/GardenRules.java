@@ -0,0 +1,42 @@
+package com.lby.moyuultimate.game;
+
+/**
+ * 家园规则常量（与前端 garden.ts / trees.ts / fruits.ts 保持一致）
+ */
+public final class GardenRules {
+    
+    // 家园网格 8行 × 15列
+    public static final int ROWS = 8;
+    public static final int COLS = 15;
+    public static final int CELLS = ROWS * COLS;
+    
+    // 果树与果实等级范围 0..15
+    public static final int MAX_TREE_LEVEL = 15;
+    public static final int MAX_FRUIT_LEVEL = 15;
+    
+    private static final long REGEN_STEP_MILLIS = 30L * 60 * 1000;
+    
+    private GardenRules() {}
+    
+    /**
+     * 果树每轮可采摘果实数：0级38颗，每升一级减少2颗，最少2颗
+     */
+    public static int maxFruits(int treeLevel) {
+        return Math.max(2, 38 - treeLevel * 2);
+    }
+    
+    /**
+     * 果树重新结果所需时间：0级30分钟，每升一级增加30分钟
+     */
+    public static long regenMillis(int treeLevel) {
+        return REGEN_STEP_MILLIS * (treeLevel + 1);
+    }
+    
+    public static boolean inBounds(int x, int y) {
+        return x >= 0 && x < ROWS && y >= 0 && y < COLS;
+    }
+    
+    public static int index(int x, int y) {
+        return x * COLS + y;
+    }
+}
@@ -0,0 +1,102 @@
+package com.lby.moyuultimate.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * 分层时间轮：4层、每层64个槽，1秒一格时可覆盖约194天
+ * 定时任务只记录一个long类型的key，到期后回调；不支持取消，调用方在回调中自行校验是否仍然有效。
+ * 非线程安全，调用方需自行加锁。
+ */
+public final class HierarchicalTimingWheel {
+    
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    
+    private record Timer(long key, long tick) {}
+    
+    private final long tickMillis;
+    private final List<Timer>[][] wheels;
+    private long currentTick;
+    private int size;
+    
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.wheels = new List[LEVELS][SLOTS];
+        for (int level = 0; level < LEVELS; level++) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheels[level][slot] = new ArrayList<>();
+            }
+        }
+    }
+    
+    /**
+     * 添加定时任务，deadlineMillis已过期的任务在下一格触发
+     */
+    public void schedule(long key, long deadlineMillis) {
+        long tick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        place(new Timer(key, Math.max(tick, currentTick + 1)));
+        size++;
+    }
+    
+    /**
+     * 推进到nowMillis，依次回调所有到期任务的key
+     */
+    public void advance(long nowMillis, LongConsumer onExpired) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 从高层往低层下放，保证本格到期的任务都落到第0层
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK));
+                }
+            }
+            List<Timer> bucket = wheels[0][(int) (currentTick & SLOT_MASK)];
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            List<Timer> expired = new ArrayList<>(bucket);
+            bucket.clear();
+            size -= expired.size();
+            for (Timer timer : expired) {
+                onExpired.accept(timer.key());
+            }
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private void cascade(int level, int slot) {
+        List<Timer> bucket = wheels[level][slot];
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Timer> timers = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Timer timer : timers) {
+            place(timer);
+        }
+    }
+    
+    private void place(Timer timer) {
+        long tick = Math.max(timer.tick(), currentTick);
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            if ((tick >>> shift) - (currentTick >>> shift) < SLOTS) {
+                wheels[level][(int) ((tick >>> shift) & SLOT_MASK)].add(timer);
+                return;
+            }
+        }
+        // 超出最高层范围：先放到最高层最远的槽，下放时重新计算位置
+        int shift = SLOT_BITS * (LEVELS - 1);
+        wheels[LEVELS - 1][(int) (((currentTick >>> shift) + SLOT_MASK) & SLOT_MASK)].add(timer);
+    }
+}
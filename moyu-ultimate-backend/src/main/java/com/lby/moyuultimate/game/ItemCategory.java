@@ -0,0 +1,45 @@
+package com.lby.moyuultimate.game;
+
+/**
+ * 背包物品类别，背包以定长long数组保存：0为种子，1-16为果树，17-32为果实
+ */
+public enum ItemCategory {
+    SEED,
+    TREE,
+    FRUIT;
+    
+    public static final int BACKPACK_SLOTS = 1 + (GardenRules.MAX_TREE_LEVEL + 1) + (GardenRules.MAX_FRUIT_LEVEL + 1);
+    
+    /**
+     * 物品在背包数组中的位置，等级无效时返回-1
+     */
+    public int slot(int level) {
+        return switch (this) {
+            case SEED -> 0;
+            case TREE -> level >= 0 && level <= GardenRules.MAX_TREE_LEVEL ? 1 + level : -1;
+            case FRUIT -> level >= 0 && level <= GardenRules.MAX_FRUIT_LEVEL ? 2 + GardenRules.MAX_TREE_LEVEL + level : -1;
+        };
+    }
+    
+    /**
+     * 与前端背包一致的物品key，例如 seed、tree-1、fruit-2
+     */
+    public static String keyOfSlot(int slot) {
+        if (slot == 0) {
+            return "seed";
+        }
+        if (slot <= GardenRules.MAX_TREE_LEVEL + 1) {
+            return "tree-" + (slot - 1);
+        }
+        return "fruit-" + (slot - 2 - GardenRules.MAX_TREE_LEVEL);
+    }
+    
+    public static ItemCategory fromName(String name) {
+        return switch (name) {
+            case "seed" -> SEED;
+            case "tree" -> TREE;
+            case "fruit" -> FRUIT;
+            default -> throw new IllegalArgumentException("未知的物品类别：" + name);
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package com.lby.moyuultimate.game;
+
+/**
+ * 拖动物品的结果
+ */
+public enum MoveResult {
+    NONE,     // 无效操作
+    MOVED,    // 移动到空格子
+    SWAPPED,  // 与目标格子交换
+    MERGED    // 同类同级合成
+}
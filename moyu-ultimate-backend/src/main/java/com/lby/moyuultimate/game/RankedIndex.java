@@ -0,0 +1,197 @@
+package com.lby.moyuultimate.game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * 排行榜索引：带跨度的跳表（与Redis有序集合相同的结构），按分数从高到低、分数相同按玩家ID从小到大排序
+ * 更新、删除、查名次、按名次取值均为 O(log n)。非线程安全，调用方需自行加锁。
+ */
+public final class RankedIndex {
+    
+    private static final int MAX_LEVEL = 32;
+    
+    public record Entry(long userId, long score, int rank) {}
+    
+    private static final class Node {
+        final long userId;
+        final long score;
+        final Node[] next;
+        // span[i] 为第i层到下一个节点跨过的节点数
+        final int[] span;
+        
+        Node(long userId, long score, int level) {
+            this.userId = userId;
+            this.score = score;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+    
+    private final Node head = new Node(0, 0, MAX_LEVEL);
+    private final Map<Long, Long> scores = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private final Node[] update = new Node[MAX_LEVEL];
+    private final int[] rankAt = new int[MAX_LEVEL];
+    private int level = 1;
+    
+    /**
+     * 设置玩家分数，已存在时先移除旧位置
+     */
+    public void put(long userId, long score) {
+        Long old = scores.put(userId, score);
+        if (old != null) {
+            if (old == score) {
+                return;
+            }
+            delete(userId, old);
+        }
+        insert(userId, score);
+    }
+    
+    public boolean remove(long userId) {
+        Long old = scores.remove(userId);
+        if (old == null) {
+            return false;
+        }
+        delete(userId, old);
+        return true;
+    }
+    
+    public Long scoreOf(long userId) {
+        return scores.get(userId);
+    }
+    
+    public int size() {
+        return scores.size();
+    }
+    
+    /**
+     * 玩家名次（从1开始），不在榜上返回0
+     */
+    public int rankOf(long userId) {
+        Long score = scores.get(userId);
+        if (score == null) {
+            return 0;
+        }
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && !after(x.next[i], userId, score)) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x != head && x.userId == userId) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * 从第fromRank名（从1开始）起取最多limit条
+     */
+    public List<Entry> range(int fromRank, int limit) {
+        List<Entry> result = new ArrayList<>(Math.max(0, Math.min(limit, size() - fromRank + 1)));
+        if (fromRank < 1 || fromRank > size() || limit <= 0) {
+            return result;
+        }
+        // 按跨度定位到第fromRank个节点
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= fromRank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == fromRank) {
+                break;
+            }
+        }
+        int rank = fromRank;
+        while (x != null && result.size() < limit) {
+            result.add(new Entry(x.userId, x.score, rank++));
+            x = x.next[0];
+        }
+        return result;
+    }
+    
+    /**
+     * 节点是否排在(userId, score)之后
+     */
+    private static boolean after(Node node, long userId, long score) {
+        return node.score < score || (node.score == score && node.userId > userId);
+    }
+    
+    /**
+     * 节点是否排在(userId, score)之前
+     */
+    private static boolean before(Node node, long userId, long score) {
+        return node.score > score || (node.score == score && node.userId < userId);
+    }
+    
+    private void insert(long userId, long score) {
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rankAt[i] = i == level - 1 ? 0 : rankAt[i + 1];
+            while (x.next[i] != null && !after(x.next[i], userId, score)) {
+                rankAt[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rankAt[i] = 0;
+                update[i] = head;
+                update[i].span[i] = scores.size() - 1;
+            }
+            level = newLevel;
+        }
+        Node node = new Node(userId, score, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rankAt[0] - rankAt[i]);
+            update[i].span[i] = (rankAt[0] - rankAt[i]) + 1;
+        }
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+    }
+    
+    private void delete(long userId, long score) {
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i], userId, score)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        Node node = x.next[0];
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+    }
+    
+    private int randomLevel() {
+        int lvl = 1;
+        // 每层晋升概率1/4
+        while (lvl < MAX_LEVEL && (random.nextInt() & 0x3) == 0) {
+            lvl++;
+        }
+        return lvl;
+    }
+}
@@ -0,0 +1,6 @@
+package com.lby.moyuultimate.game;
+
+/**
+ * 果树重新结果事件，由时间轮到期时发布
+ */
+public record TreeRipeEvent(long userId, int trees, long ripeTime) {}
@@ -0,0 +1,9 @@
+package com.lby.moyuultimate.repository;
+
+import com.lby.moyuultimate.entity.GardenSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GardenSnapshotRepository extends JpaRepository<GardenSnapshot, Long> {
+}
@@ -0,0 +1,38 @@
+package com.lby.moyuultimate.repository;
+
+import com.lby.moyuultimate.entity.LeaderboardEntry;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+@Repository
+public interface LeaderboardEntryRepository extends JpaRepository<LeaderboardEntry, Long> {
+    
+    /**
+     * 流式读取全部排行记录（board, userId, score），需在事务内消费并关闭
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e.board, e.userId, e.score FROM LeaderboardEntry e")
+    Stream<Object[]> streamAllScores();
+    
+    /**
+     * 删除玩家在所有榜单上的记录
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM LeaderboardEntry e WHERE e.userId = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
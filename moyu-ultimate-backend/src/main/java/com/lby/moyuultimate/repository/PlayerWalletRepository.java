@@ -0,0 +1,9 @@
+package com.lby.moyuultimate.repository;
+
+import com.lby.moyuultimate.entity.PlayerWallet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PlayerWalletRepository extends JpaRepository<PlayerWallet, Long> {
+}
@@ -1,12 +1,16 @@
 package com.lby.moyuultimate.repository;
 
 import com.lby.moyuultimate.entity.UserBan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +23,12 @@ public interface UserBanRepository extends JpaRepository<UserBan, Long> {
     @Query("SELECT ub FROM UserBan ub WHERE ub.user.id = :userId AND ub.isActive = true")
     Optional<UserBan> findActiveBanByUserId(@Param("userId") Long userId);
     
+    /**
+     * 查找用户的全部活跃封禁记录（正常情况下至多一条）
+     */
+    @Query("SELECT ub FROM UserBan ub WHERE ub.user.id = :userId AND ub.isActive = true")
+    List<UserBan> findActiveBansByUserId(@Param("userId") Long userId);
+    
     /**
      * 查找用户的所有封禁记录
      */
@@ -31,9 +41,28 @@ public interface UserBanRepository extends JpaRepository<UserBan, Long> {
     @Query("SELECT ub FROM UserBan ub WHERE ub.isActive = true")
     List<UserBan> findAllActiveBans();
     
+    /**
+     * 查找所有活跃封禁的状态（返回封禁ID、用户ID、封禁类型和结束时间）
+     */
+    @Query("SELECT ub.id, ub.user.id, ub.banType, ub.banEndTime FROM UserBan ub WHERE ub.isActive = true")
+    List<Object[]> findAllActiveBanStates();
+    
+    /**
+     * 查找所有存在活跃封禁的用户ID
+     */
+    @Query("SELECT DISTINCT ub.user.id FROM UserBan ub WHERE ub.isActive = true")
+    List<Long> findAllActiveBannedUserIds();
+    
+    /**
+     * 批量查找指定用户中存在活跃封禁的用户ID
+     */
+    @Query("SELECT DISTINCT ub.user.id FROM UserBan ub WHERE ub.isActive = true AND ub.user.id IN :userIds")
+    List<Long> findActiveBannedUserIdsIn(@Param("userIds") Collection<Long> userIds);
+    
     /**
      * 删除用户的所有封禁记录
      */
+    @Transactional
     @Modifying
     @Query("DELETE FROM UserBan ub WHERE ub.user.id = :userId")
     void deleteByUserId(@Param("userId") Long userId);
@@ -43,4 +72,32 @@ public interface UserBanRepository extends JpaRepository<UserBan, Long> {
      */
     @Query("SELECT ub FROM UserBan ub WHERE ub.banType = 'TEMPORARY' AND ub.isActive = true AND ub.banEndTime < CURRENT_TIMESTAMP")
     List<UserBan> findExpiredTemporaryBans();
-} 
\ No newline at end of file
+    
+    /**
+     * 分批查找已过期但仍处于活跃状态的临时封禁（返回ID和用户ID）
+     */
+    @Query("SELECT ub.id, ub.user.id FROM UserBan ub WHERE ub.banType = 'TEMPORARY' AND ub.isActive = true AND ub.banEndTime < :now ORDER BY ub.id")
+    List<Object[]> findExpiredTemporaryBanIds(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * 查找在指定时间之前到期的活跃临时封禁（返回ID、用户ID和结束时间）
+     */
+    @Query("SELECT ub.id, ub.user.id, ub.banEndTime FROM UserBan ub WHERE ub.banType = 'TEMPORARY' AND ub.isActive = true AND ub.banEndTime < :until")
+    List<Object[]> findTemporaryBanExpiriesBefore(@Param("until") LocalDateTime until);
+    
+    /**
+     * 批量失效封禁记录
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserBan ub SET ub.isActive = false WHERE ub.id IN :ids AND ub.isActive = true")
+    int deactivateByIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 失效用户的全部活跃封禁记录
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserBan ub SET ub.isActive = false WHERE ub.user.id = :userId AND ub.isActive = true")
+    int deactivateByUserId(@Param("userId") Long userId);
+}
@@ -1,13 +1,25 @@
 package com.lby.moyuultimate.repository;
 
 import com.lby.moyuultimate.entity.User;
+import com.lby.moyuultimate.entity.UserRole;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -40,7 +52,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     /**
      * 根据角色查找用户
      */
-    List<User> findByRole(com.lby.moyuultimate.entity.UserRole role);
+    List<User> findByRole(UserRole role);
     
     /**
      * 查找最近登录的用户
@@ -53,4 +65,81 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u FROM User u WHERE u.username LIKE %:keyword% OR u.displayName LIKE %:keyword%")
     List<User> searchUsers(@Param("keyword") String keyword);
-} 
\ No newline at end of file
+    
+    /**
+     * 按ID游标分页查询用户（keyset分页），过滤条件为null时忽略
+     * namePattern 为用户名前缀（可走索引）；keywordPattern 为用户名或显示名的子串，不区分大小写
+     * banned 与封禁索引一致：已到期但尚未被到期任务失效的临时封禁不算封禁
+     */
+    @Query("SELECT u FROM User u WHERE u.id > :afterId " +
+           "AND (:online IS NULL OR u.isOnline = :online) " +
+           "AND (:role IS NULL OR u.role = :role) " +
+           "AND (:namePattern IS NULL OR u.username LIKE :namePattern ESCAPE '!') " +
+           "AND (:keywordPattern IS NULL OR LOWER(u.username) LIKE :keywordPattern ESCAPE '!' " +
+           "  OR LOWER(u.displayName) LIKE :keywordPattern ESCAPE '!') " +
+           "AND (:banned IS NULL " +
+           "  OR (:banned = true AND EXISTS (SELECT 1 FROM UserBan ub WHERE ub.user = u AND ub.isActive = true " +
+           "    AND (ub.banEndTime IS NULL OR ub.banEndTime > CURRENT_TIMESTAMP))) " +
+           "  OR (:banned = false AND NOT EXISTS (SELECT 1 FROM UserBan ub WHERE ub.user = u AND ub.isActive = true " +
+           "    AND (ub.banEndTime IS NULL OR ub.banEndTime > CURRENT_TIMESTAMP)))) " +
+           "ORDER BY u.id ASC")
+    List<User> findPageAfterId(@Param("afterId") Long afterId,
+                               @Param("online") Boolean online,
+                               @Param("banned") Boolean banned,
+                               @Param("role") UserRole role,
+                               @Param("namePattern") String namePattern,
+                               @Param("keywordPattern") String keywordPattern,
+                               Pageable pageable);
+    
+    /**
+     * 按ID顺序流式读取全部用户（需在事务内消费并关闭）
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u ORDER BY u.id ASC")
+    Stream<User> streamAllOrderById();
+    
+    /**
+     * 流式读取全部用户名和邮箱（username, email），需在事务内消费并关闭
+     */
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.username, u.email FROM User u")
+    Stream<Object[]> streamUsernamesAndEmails();
+    
+    /**
+     * 更新密码哈希（仅当哈希未被其他操作修改时生效）
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+    
+    /**
+     * 批量更新在线状态
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = :online WHERE u.id IN :ids")
+    int updateOnlineStatus(@Param("ids") Collection<Long> ids, @Param("online") Boolean online);
+    
+    /**
+     * 批量更新最后登录时间
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.lastLoginTime = :time WHERE u.id IN :ids")
+    int updateLastLoginTime(@Param("ids") Collection<Long> ids, @Param("time") LocalDateTime time);
+    
+    /**
+     * 将所有用户标记为离线
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = false WHERE u.isOnline = true")
+    int markAllOffline();
+}
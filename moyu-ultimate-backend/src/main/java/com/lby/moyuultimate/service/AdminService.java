@@ -7,16 +7,19 @@ import com.lby.moyuultimate.entity.Admin;
 import com.lby.moyuultimate.entity.User;
 import com.lby.moyuultimate.entity.UserBan;
 import com.lby.moyuultimate.entity.BanType;
+import com.lby.moyuultimate.entity.UserRole;
 import com.lby.moyuultimate.repository.AdminRepository;
 import com.lby.moyuultimate.repository.UserRepository;
 import com.lby.moyuultimate.repository.UserBanRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
@@ -33,11 +36,42 @@ public class AdminService {
     private UserBanRepository userBanRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     
     @Autowired
     private JwtService jwtService;
     
+    @Autowired
+    private BanExpiryService banExpiryService;
+    
+    @Autowired
+    private BanIndexService banIndexService;
+    
+    @Autowired
+    private PresenceService presenceService;
+    
+    @Autowired
+    private GardenService gardenService;
+    
+    @Autowired
+    private CurrencyService currencyService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private PushService pushService;
+    
+    @Autowired
+    private QueryTraceService queryTraceService;
+    
+    @Autowired
+    private NameAvailabilityService nameAvailabilityService;
+    
+    // 分页查询的默认和最大每页条数
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    
     /**
      * 管理员登录
      */
@@ -46,18 +80,21 @@ public class AdminService {
             // 查找管理员
             Optional<Admin> adminOpt = adminRepository.findByUsername(loginRequest.getUsername());
             if (adminOpt.isEmpty()) {
+                ApiOutcome.badCredentials();
                 return new AuthResponse(false, "管理员账号或密码错误");
             }
             
             Admin admin = adminOpt.get();
             
             // 验证密码
-            if (!passwordEncoder.matches(loginRequest.getPassword(), admin.getPassword())) {
+            if (!passwordHashingService.matches(loginRequest.getPassword(), admin.getPassword())) {
+                ApiOutcome.badCredentials();
                 return new AuthResponse(false, "管理员账号或密码错误");
             }
             
             // 验证管理员密钥
             if (!admin.getAdminSecret().equals(loginRequest.getSecret())) {
+                ApiOutcome.badCredentials();
                 return new AuthResponse(false, "管理员密钥错误");
             }
             
@@ -80,7 +117,10 @@ public class AdminService {
             
             return response;
             
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
+            ApiOutcome.failed(e);
             return new AuthResponse(false, "管理员登录失败：" + e.getMessage());
         }
     }
@@ -89,35 +129,249 @@ public class AdminService {
      * 获取所有用户列表
      */
     public Map<String, Object> getAllUsers(String token) {
+        // 验证管理员token（凭证错误不计入异常）
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        
         try {
-            // 验证管理员token
-            if (!jwtService.isAdminTokenValid(token)) {
-                throw new Exception("无效的管理员token");
-            }
-            
             List<User> users = userRepository.findAll();
             
-            // 为每个用户添加封禁状态
-            for (User user : users) {
-                Optional<UserBan> activeBan = userBanRepository.findActiveBanByUserId(user.getId());
-                user.setIsBanned(activeBan.isPresent());
-            }
+            // 从内存封禁索引合并封禁状态
+            resolveBanStatus(users);
             
             Map<String, Object> response = new HashMap<>();
             response.put("users", users);
             response.put("total", users.size());
-            response.put("online", users.stream().filter(u -> u.getIsOnline() && !u.getIsBanned()).count());
+            response.put("online", presenceService.getOnlineCount());
             response.put("banned", users.stream().filter(u -> u.getIsBanned()).count());
             
             return response;
             
         } catch (Exception e) {
+            ApiOutcome.failed(e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", e.getMessage());
             return errorResponse;
         }
     }
     
+    /**
+     * 分页获取用户列表（按ID游标分页，支持服务端过滤）
+     */
+    public Map<String, Object> getUserPage(String token, Long afterId, Integer limit,
+                                           Boolean online, Boolean banned, UserRole role, String namePrefix,
+                                           String keyword) {
+        // 验证管理员token（凭证错误不计入异常）
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        
+        try {
+            int pageSize = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+            String namePattern = namePrefix == null || namePrefix.isEmpty() ? null : escapeLike(namePrefix) + "%";
+            // 子串匹配无法使用索引，按ID顺序扫描到凑满一页为止
+            String keywordPattern = keyword == null || keyword.isEmpty()
+                    ? null : "%" + escapeLike(keyword.toLowerCase(Locale.ROOT)) + "%";
+            
+            // 多取一条用于判断是否还有下一页
+            List<User> users = new ArrayList<>(userRepository.findPageAfterId(
+                    afterId == null ? 0L : afterId, online, banned, role, namePattern, keywordPattern,
+                    PageRequest.of(0, pageSize + 1)));
+            boolean hasMore = users.size() > pageSize;
+            if (hasMore) {
+                users.remove(users.size() - 1);
+            }
+            
+            resolveBanStatus(users);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("users", users);
+            response.put("hasMore", hasMore);
+            response.put("nextAfterId", users.isEmpty() ? null : users.get(users.size() - 1).getId());
+            // 总数需要全表计数，只在第一页返回，"加载更多"时沿用第一页的值
+            if (afterId == null) {
+                response.put("total", userRepository.count());
+            }
+            response.put("online", presenceService.getOnlineCount());
+            response.put("banned", banIndexService.countBanned());
+            
+            return response;
+            
+        } catch (Exception e) {
+            ApiOutcome.failed(e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", e.getMessage());
+            return errorResponse;
+        }
+    }
+    
+    /**
+     * 转义LIKE通配符（转义符为!，反斜杠在MySQL和H2字符串字面量中的含义不同）
+     */
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+    
+    /**
+     * 填充用户的封禁状态（查询内存封禁索引，不访问数据库）
+     */
+    public void resolveBanStatus(List<User> users) {
+        for (User user : users) {
+            user.setIsBanned(banIndexService.isBanned(user.getId()));
+        }
+    }
+    
+    /**
+     * 获取token缓存统计
+     */
+    public Map<String, Object> getTokenCacheStats(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return jwtService.getCacheStats();
+    }
+    
+    /**
+     * 获取密码哈希线程池统计
+     */
+    public Map<String, Object> getPasswordHashingStats(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return passwordHashingService.getStats();
+    }
+    
+    /**
+     * 校准BCrypt强度
+     */
+    public Map<String, Object> calibratePasswordHashing(String token, long targetMs) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return passwordHashingService.calibrate(targetMs);
+    }
+    
+    /**
+     * 获取在线状态统计
+     */
+    public Map<String, Object> getPresenceStats(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return presenceService.getStats();
+    }
+    
+    /**
+     * 获取封禁到期处理统计
+     */
+    public Map<String, Object> getBanExpiryStats(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return banExpiryService.getStats();
+    }
+    
+    /**
+     * 获取家园统计
+     */
+    public Map<String, Object> getGardenStats(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return gardenService.getStats();
+    }
+    
+    /**
+     * 获取货币账本统计
+     */
+    public Map<String, Object> getCurrencyStats(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return currencyService.getStats();
+    }
+    
+    /**
+     * 获取排行榜统计
+     */
+    public Map<String, Object> getLeaderboardStats(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return leaderboardService.getStats();
+    }
+    
+    /**
+     * 获取推送连接统计
+     */
+    public Map<String, Object> getPushStats(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return pushService.getStats();
+    }
+    
+    /**
+     * 获取SQL执行追踪统计（耗时排名靠前的语句形状及最近的慢查询采样）
+     */
+    public Map<String, Object> getQueryStats(String token, int limit, String sortBy) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return queryTraceService.getTopQueries(Math.min(Math.max(limit, 1), MAX_PAGE_SIZE), sortBy);
+    }
+    
+    /**
+     * 获取用户名/邮箱过滤器状态
+     */
+    public Map<String, Object> getNameAvailabilityStats(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "无效的管理员token");
+            return errorResponse;
+        }
+        return nameAvailabilityService.getStats();
+    }
+    
+    /**
+     * 清空SQL执行追踪统计
+     */
+    public Map<String, Object> resetQueryStats(String token) {
+        Map<String, Object> response = new HashMap<>();
+        if (!jwtService.isAdminTokenValid(token)) {
+            response.put("error", "无效的管理员token");
+            return response;
+        }
+        queryTraceService.reset();
+        response.put("success", true);
+        return response;
+    }
+    
     /**
      * 封禁用户
      */
@@ -145,10 +399,13 @@ public class AdminService {
             Admin admin = adminOpt.get();
             
             // 检查是否已经封禁
-            Optional<UserBan> existingBan = userBanRepository.findActiveBanByUserId(userId);
-            if (existingBan.isPresent()) {
+            BanIndexService.BanState existingBan = banIndexService.getState(userId);
+            if (existingBan != null && !existingBan.isExpired(System.currentTimeMillis())) {
                 return new AuthResponse(false, "用户已被封禁");
             }
+            // 已到期但尚未被到期任务处理的记录可能已从索引中移除（登录等查询会清理到期项），
+            // 按数据库失效该用户的全部活跃记录，保证每个用户至多一条活跃封禁
+            userBanRepository.deactivateByUserId(userId);
             
             // 创建封禁记录
             UserBan userBan = new UserBan();
@@ -164,11 +421,16 @@ public class AdminService {
                 userBan.setBanDuration(banRequest.getDuration());
             }
             
-            userBanRepository.save(userBan);
+            UserBan savedBan = userBanRepository.save(userBan);
+            banIndexService.put(savedBan);
+            banExpiryService.register(savedBan);
+            presenceService.logout(userId);
+            pushService.notifyBanned(userId, banRequest.getReason());
             
             return new AuthResponse(true, "用户封禁成功");
             
         } catch (Exception e) {
+            ApiOutcome.failed(e);
             return new AuthResponse(false, "封禁用户失败：" + e.getMessage());
         }
     }
@@ -183,19 +445,21 @@ public class AdminService {
                 return new AuthResponse(false, "无效的管理员token");
             }
             
-            // 查找活跃的封禁记录
-            Optional<UserBan> banOpt = userBanRepository.findActiveBanByUserId(userId);
-            if (banOpt.isEmpty()) {
+            // 查找活跃的封禁记录（兼容旧数据中同一用户有多条活跃记录的情况）
+            List<UserBan> activeBans = userBanRepository.findActiveBansByUserId(userId);
+            if (activeBans.isEmpty()) {
                 return new AuthResponse(false, "用户未被封禁");
             }
             
-            UserBan userBan = banOpt.get();
-            userBan.setIsActive(false);
-            userBanRepository.save(userBan);
+            userBanRepository.deactivateByUserId(userId);
+            banIndexService.remove(userId);
+            activeBans.forEach(banExpiryService::unregister);
+            pushService.notifyUnbanned(userId);
             
             return new AuthResponse(true, "用户解封成功");
             
         } catch (Exception e) {
+            ApiOutcome.failed(e);
             return new AuthResponse(false, "解封用户失败：" + e.getMessage());
         }
     }
@@ -216,15 +480,23 @@ public class AdminService {
                 return new AuthResponse(false, "用户不存在");
             }
             
-            // 删除用户相关的封禁记录
+            // 删除用户相关的封禁记录、家园存档、钱包账本和排行记录
             userBanRepository.deleteByUserId(userId);
+            gardenService.deleteGarden(userId);
+            currencyService.deleteWallet(userId);
+            leaderboardService.remove(userId);
             
             // 删除用户
             userRepository.deleteById(userId);
+            nameAvailabilityService.markDeleted();
+            banIndexService.remove(userId);
+            presenceService.logout(userId);
+            pushService.notifyDeleted(userId);
             
             return new AuthResponse(true, "用户删除成功");
             
         } catch (Exception e) {
+            ApiOutcome.failed(e);
             return new AuthResponse(false, "删除用户失败：" + e.getMessage());
         }
     }
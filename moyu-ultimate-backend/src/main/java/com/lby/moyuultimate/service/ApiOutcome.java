@@ -0,0 +1,72 @@
+package com.lby.moyuultimate.service;
+
+import io.jsonwebtoken.JwtException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 当前请求的处理结果，作为接口指标的 outcome 标签
+ * 服务层把失败转换为 AuthResponse(false, ...) 或 {"error": ...}，HTTP状态都是200，无法从状态码区分；
+ * 凭证错误和异常由服务层在返回前标记，其余结果按响应体判断（成功或业务拒绝）。
+ * 不在Web请求线程中调用时不做任何事
+ */
+public final class ApiOutcome {
+    
+    public static final String ATTRIBUTE = ApiOutcome.class.getName();
+    public static final String EXCEPTION_ATTRIBUTE = ATTRIBUTE + ".exception";
+    
+    public static final String SUCCESS = "success";
+    public static final String BAD_CREDENTIALS = "bad_credentials";
+    public static final String REJECTED = "rejected";
+    public static final String ERROR = "error";
+    public static final String THROTTLED = "throttled";
+    
+    private ApiOutcome() {
+    }
+    
+    /**
+     * 用户名/密码/密钥错误，或token无效
+     */
+    public static void badCredentials() {
+        mark(BAD_CREDENTIALS, null);
+    }
+    
+    /**
+     * 登录或注册尝试过于频繁被限流
+     */
+    public static void throttled() {
+        mark(THROTTLED, null);
+    }
+    
+    /**
+     * 服务层捕获的异常；token过期、签名或格式错误属于凭证错误
+     */
+    public static void failed(Exception e) {
+        if (e instanceof JwtException) {
+            badCredentials();
+        } else {
+            mark(ERROR, e.getClass().getSimpleName());
+        }
+    }
+    
+    /**
+     * 服务层没有标记时按响应体记录结果
+     */
+    public static void markIfAbsent(String outcome) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) == null) {
+            attributes.setAttribute(ATTRIBUTE, outcome, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+    
+    private static void mark(String outcome, String exception) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        attributes.setAttribute(ATTRIBUTE, outcome, RequestAttributes.SCOPE_REQUEST);
+        if (exception != null) {
+            attributes.setAttribute(EXCEPTION_ATTRIBUTE, exception, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
@@ -7,10 +7,12 @@ import com.lby.moyuultimate.entity.User;
 import com.lby.moyuultimate.entity.UserRole;
 import com.lby.moyuultimate.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -20,11 +22,20 @@ public class AuthService {
     private UserRepository userRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
     
     @Autowired
     private JwtService jwtService;
     
+    @Autowired
+    private BanIndexService banIndexService;
+    
+    @Autowired
+    private PresenceService presenceService;
+    
+    @Autowired
+    private NameAvailabilityService nameAvailabilityService;
+    
     /**
      * 用户登录
      */
@@ -33,20 +44,35 @@ public class AuthService {
             // 查找用户
             Optional<User> userOpt = userRepository.findByUsername(loginRequest.getUsername());
             if (userOpt.isEmpty()) {
+                ApiOutcome.badCredentials();
                 return new AuthResponse(false, "用户名或密码错误");
             }
             
             User user = userOpt.get();
             
             // 验证密码
-            if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+            if (!passwordHashingService.matches(loginRequest.getPassword(), user.getPassword())) {
+                ApiOutcome.badCredentials();
                 return new AuthResponse(false, "用户名或密码错误");
             }
             
-            // 更新登录信息
+            // 检查封禁状态（内存索引，不访问数据库）
+            if (banIndexService.isBanned(user.getId())) {
+                return new AuthResponse(false, "账号已被封禁");
+            }
+            
+            // 旧哈希在后台升级到当前强度，不影响登录响应；被封禁的账号不升级
+            if (passwordHashingService.needsRehash(user.getPassword())) {
+                Long userId = user.getId();
+                String oldHash = user.getPassword();
+                passwordHashingService.rehashInBackground(loginRequest.getPassword(),
+                        newHash -> userRepository.updatePasswordHash(userId, oldHash, newHash));
+            }
+            
+            // 更新登录信息（在线状态由内存注册表维护，定时批量回写数据库）
             user.setIsOnline(true);
             user.setLastLoginTime(LocalDateTime.now());
-            userRepository.save(user);
+            presenceService.login(user.getId(), user.getLastLoginTime());
             
             // 生成JWT token
             String token = jwtService.generateToken(user);
@@ -62,7 +88,10 @@ public class AuthService {
             
             return response;
             
+        } catch (PasswordHashingBusyException e) {
+            throw e;
         } catch (Exception e) {
+            ApiOutcome.failed(e);
             return new AuthResponse(false, "登录失败：" + e.getMessage());
         }
     }
@@ -77,14 +106,16 @@ public class AuthService {
                 return new AuthResponse(false, "两次输入的密码不一致");
             }
             
-            // 检查用户名是否已存在
-            if (userRepository.existsByUsername(registerRequest.getUsername())) {
+            // 检查用户名是否已存在（过滤器判定一定未占用时不查库）
+            if (nameAvailabilityService.mightBeTakenUsername(registerRequest.getUsername())
+                    && userRepository.existsByUsername(registerRequest.getUsername())) {
                 return new AuthResponse(false, "用户名已存在");
             }
             
             // 检查邮箱是否已存在（如果提供了邮箱）
             if (registerRequest.getEmail() != null && !registerRequest.getEmail().isEmpty()) {
-                if (userRepository.existsByEmail(registerRequest.getEmail())) {
+                if (nameAvailabilityService.mightBeTakenEmail(registerRequest.getEmail())
+                        && userRepository.existsByEmail(registerRequest.getEmail())) {
                     return new AuthResponse(false, "邮箱已被使用");
                 }
             }
@@ -92,7 +123,7 @@ public class AuthService {
             // 创建新用户（所有用户都是普通用户）
             User user = new User();
             user.setUsername(registerRequest.getUsername());
-            user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
+            user.setPassword(passwordHashingService.encode(registerRequest.getPassword()));
             user.setEmail(registerRequest.getEmail());
             user.setDisplayName(registerRequest.getDisplayName() != null ? 
                 registerRequest.getDisplayName() : registerRequest.getUsername());
@@ -101,10 +132,18 @@ public class AuthService {
             
             // 保存用户
             User savedUser = userRepository.save(user);
+            nameAvailabilityService.add(savedUser.getUsername(), savedUser.getEmail());
             
             return new AuthResponse(true, "注册成功");
             
+        } catch (PasswordHashingBusyException e) {
+            throw e;
+        } catch (DataIntegrityViolationException e) {
+            // 并发注册了同名用户，由唯一约束拒绝
+            return new AuthResponse(false, userRepository.existsByUsername(registerRequest.getUsername())
+                    ? "用户名已存在" : "邮箱已被使用");
         } catch (Exception e) {
+            ApiOutcome.failed(e);
             return new AuthResponse(false, "注册失败：" + e.getMessage());
         }
     }
@@ -114,14 +153,12 @@ public class AuthService {
      */
     public AuthResponse logout(Long userId) {
         try {
-            Optional<User> userOpt = userRepository.findById(userId);
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                user.setIsOnline(false);
-                userRepository.save(user);
+            if (userId != null) {
+                presenceService.logout(userId);
             }
             return new AuthResponse(true, "登出成功");
         } catch (Exception e) {
+            ApiOutcome.failed(e);
             return new AuthResponse(false, "登出失败：" + e.getMessage());
         }
     }
@@ -136,19 +173,69 @@ public class AuthService {
             
             if (userOpt.isPresent() && jwtService.isTokenValid(token, userOpt.get())) {
                 User user = userOpt.get();
+                
+                // 封禁后已签发的token立即失效
+                if (banIndexService.isBanned(user.getId())) {
+                    return new AuthResponse(false, "账号已被封禁");
+                }
+                
                 AuthResponse response = new AuthResponse(true, "Token有效");
                 response.setUserId(user.getId());
                 response.setUsername(user.getUsername());
                 response.setDisplayName(user.getDisplayName());
                 response.setEmail(user.getEmail());
                 response.setRole(user.getRole());
-                response.setIsOnline(user.getIsOnline());
+                response.setIsOnline(presenceService.isOnline(user.getId()));
                 return response;
             } else {
+                ApiOutcome.badCredentials();
                 return new AuthResponse(false, "Token无效");
             }
         } catch (Exception e) {
+            ApiOutcome.failed(e);
             return new AuthResponse(false, "Token验证失败：" + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 在线心跳
+     */
+    public AuthResponse heartbeat(String token) {
+        try {
+            Long userId = jwtService.extractUserId(token);
+            if (userId == null) {
+                ApiOutcome.badCredentials();
+                return new AuthResponse(false, "Token无效");
+            }
+            if (banIndexService.isBanned(userId)) {
+                presenceService.logout(userId);
+                return new AuthResponse(false, "账号已被封禁");
+            }
+            
+            presenceService.heartbeat(userId);
+            AuthResponse response = new AuthResponse(true, "心跳成功");
+            response.setUserId(userId);
+            response.setIsOnline(true);
+            return response;
+        } catch (Exception e) {
+            ApiOutcome.failed(e);
+            return new AuthResponse(false, "Token验证失败：" + e.getMessage());
+        }
+    }
+    
+    /**
+     * 用户名是否可能可用（只查内存过滤器，仅作注册表单的提示，以注册结果为准）
+     * 不提供邮箱查询，避免未登录的请求借此探测邮箱是否已注册
+     */
+    public Map<String, Object> checkAvailability(String username) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        if (username == null || username.isEmpty()) {
+            response.put("error", "请提供用户名");
+            return response;
+        }
+        response.put("username", username);
+        response.put("usernameLikelyAvailable", !nameAvailabilityService.mightBeTakenUsername(username));
+        response.put("message", "仅供参考，是否可用以注册结果为准");
+        return response;
+    }
+}
@@ -0,0 +1,192 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.entity.BanType;
+import com.lby.moyuultimate.entity.UserBan;
+import com.lby.moyuultimate.repository.UserBanRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 临时封禁到期处理
+ *
+ * 定期全量清理：按批次查出已过期的封禁ID并批量UPDATE失效，不加载实体。
+ * 到期时间轮：内存中按到期时间排序保存即将到期（时间窗口内）的封禁，每秒只检查队首，
+ * 使封禁在到期后及时解除，而无需频繁扫描整张表。
+ * 失效后向管理员推送解封事件（期间又被封禁的用户除外）。
+ */
+@Service
+public class BanExpiryService {
+    
+    @Autowired
+    private UserBanRepository userBanRepository;
+    
+    @Autowired
+    private BanIndexService banIndexService;
+    
+    @Autowired
+    private PushService pushService;
+    
+    @Value("${ban.expiry.chunk-size:500}")
+    private int chunkSize;
+    
+    @Value("${ban.expiry.horizon-minutes:60}")
+    private long horizonMinutes;
+    
+    // 按到期时间（毫秒）排序的封禁，封禁ID -> 用户ID
+    private final ConcurrentSkipListMap<Long, Map<Long, Long>> expiryWheel = new ConcurrentSkipListMap<>();
+    
+    // 时间轮中已包含在此时间之前到期的全部封禁
+    private volatile long horizonMillis;
+    
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong totalExpired = new AtomicLong();
+    private volatile long lastRunExpired;
+    private volatile long lastRunMillis;
+    private volatile LocalDateTime lastRunTime;
+    
+    /**
+     * 全量清理已过期的封禁，并重新加载时间窗口内即将到期的封禁
+     */
+    @Scheduled(initialDelayString = "${ban.expiry.initial-delay-ms:5000}",
+               fixedDelayString = "${ban.expiry.sweep-interval-ms:600000}")
+    public void sweep() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        
+        int expired = 0;
+        List<Object[]> rows;
+        do {
+            rows = userBanRepository.findExpiredTemporaryBanIds(now, PageRequest.of(0, chunkSize));
+            Map<Long, Long> bans = new LinkedHashMap<>();
+            for (Object[] row : rows) {
+                bans.put((Long) row[0], (Long) row[1]);
+            }
+            if (!bans.isEmpty()) {
+                expired += expire(bans);
+            }
+        } while (rows.size() == chunkSize);
+        
+        reloadWheel(now);
+        banIndexService.evictExpired();
+        recordRun(expired, start);
+    }
+    
+    /**
+     * 检查时间轮队首，失效已到期的封禁
+     */
+    @Scheduled(fixedDelayString = "${ban.expiry.tick-ms:1000}")
+    public void tick() {
+        ConcurrentNavigableMap<Long, Map<Long, Long>> due = expiryWheel.headMap(System.currentTimeMillis(), true);
+        if (due.isEmpty()) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        int expired = 0;
+        Map<Long, Long> bans = new LinkedHashMap<>();
+        Map.Entry<Long, Map<Long, Long>> entry;
+        while ((entry = due.pollFirstEntry()) != null) {
+            bans.putAll(entry.getValue());
+            if (bans.size() >= chunkSize) {
+                expired += expire(bans);
+                bans = new LinkedHashMap<>();
+            }
+        }
+        if (!bans.isEmpty()) {
+            expired += expire(bans);
+        }
+        recordRun(expired, start);
+    }
+    
+    /**
+     * 新增封禁时登记到时间轮（超出时间窗口的由下次全量清理加载）
+     */
+    public void register(UserBan ban) {
+        if (ban.getBanType() != BanType.TEMPORARY || ban.getBanEndTime() == null) {
+            return;
+        }
+        long endMillis = toMillis(ban.getBanEndTime());
+        if (endMillis < horizonMillis) {
+            expiryWheel.computeIfAbsent(endMillis, k -> new ConcurrentHashMap<>()).put(ban.getId(), ban.getUser().getId());
+        }
+    }
+    
+    /**
+     * 解除封禁时从时间轮移除
+     */
+    public void unregister(UserBan ban) {
+        if (ban.getBanEndTime() == null) {
+            return;
+        }
+        Map<Long, Long> ids = expiryWheel.get(toMillis(ban.getBanEndTime()));
+        if (ids != null) {
+            ids.remove(ban.getId());
+        }
+    }
+    
+    /**
+     * 获取到期处理统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("runs", runs.get());
+        stats.put("totalExpired", totalExpired.get());
+        stats.put("lastRunExpired", lastRunExpired);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRunTime", lastRunTime);
+        stats.put("pendingInWheel", expiryWheel.values().stream().mapToInt(Map::size).sum());
+        return stats;
+    }
+    
+    private void reloadWheel(LocalDateTime now) {
+        LocalDateTime horizon = now.plusMinutes(horizonMinutes);
+        horizonMillis = toMillis(horizon);
+        for (Object[] row : userBanRepository.findTemporaryBanExpiriesBefore(horizon)) {
+            Long banId = (Long) row[0];
+            Long userId = (Long) row[1];
+            long endMillis = toMillis((LocalDateTime) row[2]);
+            expiryWheel.computeIfAbsent(endMillis, k -> new ConcurrentHashMap<>()).put(banId, userId);
+        }
+    }
+    
+    /**
+     * 失效一批封禁（封禁ID -> 用户ID），并通知管理员这些用户已解封
+     */
+    private int expire(Map<Long, Long> bans) {
+        int expired = userBanRepository.deactivateByIds(bans.keySet());
+        for (Long userId : new HashSet<>(bans.values())) {
+            // 到期前又被封禁的用户，索引中是新的封禁记录
+            if (!banIndexService.isBanned(userId)) {
+                pushService.notifyUnbanned(userId);
+            }
+        }
+        return expired;
+    }
+    
+    private void recordRun(int expired, long startNanos) {
+        lastRunExpired = expired;
+        lastRunMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        lastRunTime = LocalDateTime.now();
+        runs.incrementAndGet();
+        totalExpired.addAndGet(expired);
+    }
+    
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,109 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.entity.BanType;
+import com.lby.moyuultimate.entity.UserBan;
+import com.lby.moyuultimate.repository.UserBanRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的活跃封禁索引（用户ID -> 封禁状态）
+ * 启动时从数据库预热，封禁/解封/删除用户时同步写入，临时封禁的到期在查询时按结束时间判断。
+ */
+@Service
+public class BanIndexService {
+    
+    @Autowired
+    private UserBanRepository userBanRepository;
+    
+    private final Map<Long, BanState> activeBans = new ConcurrentHashMap<>();
+    
+    /**
+     * 封禁状态：永久封禁的结束时间为Long.MAX_VALUE
+     */
+    public record BanState(Long banId, BanType banType, long endMillis) {
+        public boolean isExpired(long nowMillis) {
+            return endMillis <= nowMillis;
+        }
+    }
+    
+    @PostConstruct
+    void warmUp() {
+        for (Object[] row : userBanRepository.findAllActiveBanStates()) {
+            Long banId = (Long) row[0];
+            Long userId = (Long) row[1];
+            BanType banType = (BanType) row[2];
+            LocalDateTime endTime = (LocalDateTime) row[3];
+            activeBans.put(userId, new BanState(banId, banType, toEndMillis(banType, endTime)));
+        }
+    }
+    
+    /**
+     * 判断用户当前是否被封禁
+     */
+    public boolean isBanned(Long userId) {
+        BanState state = activeBans.get(userId);
+        if (state == null) {
+            return false;
+        }
+        if (state.isExpired(System.currentTimeMillis())) {
+            // 已到期，数据库中的记录由到期任务批量失效
+            activeBans.remove(userId, state);
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * 获取用户的封禁状态（包括已到期但数据库尚未失效的记录）
+     */
+    public BanState getState(Long userId) {
+        return activeBans.get(userId);
+    }
+    
+    /**
+     * 统计当前有效的封禁用户数
+     */
+    public long countBanned() {
+        long now = System.currentTimeMillis();
+        return activeBans.values().stream().filter(s -> !s.isExpired(now)).count();
+    }
+    
+    /**
+     * 记录新的封禁
+     */
+    public void put(UserBan ban) {
+        activeBans.put(ban.getUser().getId(),
+                new BanState(ban.getId(), ban.getBanType(), toEndMillis(ban.getBanType(), ban.getBanEndTime())));
+    }
+    
+    /**
+     * 移除用户的封禁（解封或删除用户）
+     */
+    public void remove(Long userId) {
+        activeBans.remove(userId);
+    }
+    
+    /**
+     * 清理已到期的索引项
+     */
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int before = activeBans.size();
+        activeBans.values().removeIf(s -> s.isExpired(now));
+        return before - activeBans.size();
+    }
+    
+    private static long toEndMillis(BanType banType, LocalDateTime endTime) {
+        if (banType == BanType.PERMANENT || endTime == null) {
+            return Long.MAX_VALUE;
+        }
+        return endTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,407 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.entity.CurrencyType;
+import com.lby.moyuultimate.entity.LeaderboardType;
+import com.lby.moyuultimate.repository.PlayerWalletRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 货币服务：余额保存在内存中，按玩家ID分段加锁保证同一玩家的并发加减不丢失
+ * 每次变动追加一条账本记录，定时在同一事务中批量插入账本并回写余额
+ * 回写的余额取自账本记录的 balance_after，因此数据库中的余额与账本始终一致
+ * 账本记录全部写入后，长时间未访问的钱包从内存淘汰，下次访问时重新从数据库加载
+ * 分段锁内只修改余额并取一个递增序号，排行和推送在释放锁后按序号发布，较早的变动不会覆盖较新的余额
+ */
+@Service
+public class CurrencyService {
+    
+    private static final int STRIPES = 64;
+    
+    private static final String INSERT_LEDGER_SQL =
+            "INSERT INTO currency_ledger (user_id, currency, delta, balance_after, reason, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+    
+    @Autowired
+    private PlayerWalletRepository playerWalletRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private PushService pushService;
+    
+    @Value("${currency.flush-batch-size:2000}")
+    private int flushBatchSize;
+    
+    @Value("${currency.max-pending-entries:1000000}")
+    private int maxPendingEntries;
+    
+    @Value("${currency.idle-evict-ms:1800000}")
+    private long idleEvictMs = 1800000;
+    
+    // 已删除用户的墓碑保留时间，不短于token有效期，期间仍持有效token的请求不会重新加载钱包
+    @Value("${jwt.expiration:86400000}")
+    private long tombstoneTtlMs = 86400000;
+    
+    private record LedgerEntry(Wallet wallet, long userId, CurrencyType currency, long delta, long balanceAfter,
+                               String reason, long createdAt) {}
+    
+    /**
+     * 内存中的钱包，除 balances 外的字段读写都需持有对应分段锁
+     */
+    private static final class Wallet {
+        // 各币种余额，下标为 CurrencyType.ordinal()
+        final long[] balances = new long[CurrencyType.values().length];
+        // 尚未写入数据库的账本记录数，为0时才能淘汰
+        int pendingEntries;
+        long lastAccessMillis;
+        // 已从内存移除，持有旧引用的线程需重新获取
+        boolean evicted;
+    }
+    
+    // 玩家ID -> 钱包
+    private final Map<Long, Wallet> balances = new ConcurrentHashMap<>();
+    
+    // 已删除的玩家 -> 删除时间；加载钱包和写入账本时跳过
+    private final Map<Long, Long> deletedPlayers = new ConcurrentHashMap<>();
+    
+    private final Object[] stripes = new Object[STRIPES];
+    
+    // 余额变动序号，在分段锁内递增，同一玩家的序号顺序与变动顺序一致（钱包淘汰后重新加载也不回退）
+    private final AtomicLong sequence = new AtomicLong();
+    
+    // 待写入数据库的账本记录；同一玩家的记录在分段锁内追加，顺序与余额变动一致
+    private final ConcurrentLinkedQueue<LedgerEntry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    
+    // 上次写入失败的批次，下次优先重试，保证同一玩家的记录顺序
+    private List<LedgerEntry> failedBatch = new ArrayList<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    private final LongAdder mutations = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder flushedEntries = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder evictedWallets = new LongAdder();
+    
+    public CurrencyService() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+    
+    /**
+     * 增加余额，返回变动后的余额
+     */
+    public long credit(Long userId, CurrencyType currency, long amount, String reason) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("金额必须大于0");
+        }
+        return apply(userId, currency, amount, reason);
+    }
+    
+    /**
+     * 扣除余额，余额不足时抛出 InsufficientBalanceException，返回变动后的余额
+     */
+    public long debit(Long userId, CurrencyType currency, long amount, String reason) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("金额必须大于0");
+        }
+        return apply(userId, currency, -amount, reason);
+    }
+    
+    /**
+     * 获取玩家各币种余额
+     */
+    public Map<CurrencyType, Long> getBalances(Long userId) {
+        Map<CurrencyType, Long> result = new EnumMap<>(CurrencyType.class);
+        while (true) {
+            Wallet wallet = walletOf(userId);
+            synchronized (stripe(userId)) {
+                if (wallet.evicted) {
+                    continue;
+                }
+                wallet.lastAccessMillis = System.currentTimeMillis();
+                for (CurrencyType type : CurrencyType.values()) {
+                    result.put(type, wallet.balances[type.ordinal()]);
+                }
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * 获取当前玩家的余额
+     */
+    public Map<String, Object> getWallet(String token) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            Long userId = jwtService.extractUserId(token);
+            if (userId == null) {
+                response.put("success", false);
+                response.put("message", "无效的token");
+                return response;
+            }
+            Map<String, Long> wallet = new LinkedHashMap<>();
+            getBalances(userId).forEach((type, amount) -> wallet.put(type.column(), amount));
+            response.put("success", true);
+            response.put("wallet", wallet);
+            return response;
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", "获取余额失败：" + e.getMessage());
+            return response;
+        }
+    }
+    
+    /**
+     * 批量写入账本并回写余额，然后淘汰账本已全部写入且长时间未访问的钱包
+     */
+    @Scheduled(fixedDelayString = "${currency.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        flushLock.lock();
+        try {
+            drainPending();
+        } finally {
+            flushLock.unlock();
+        }
+        long now = System.currentTimeMillis();
+        evictIdle(now);
+        deletedPlayers.values().removeIf(deletedAt -> now - deletedAt > tombstoneTtlMs);
+    }
+    
+    /**
+     * 删除玩家钱包及其账本
+     * 先登记墓碑，之后的加载和账本写入都会跳过该玩家；数据库删除与批量写入互斥
+     */
+    public void deleteWallet(Long userId) {
+        deletedPlayers.put(userId, System.currentTimeMillis());
+        synchronized (stripe(userId)) {
+            Wallet wallet = balances.remove(userId);
+            if (wallet != null) {
+                wallet.evicted = true;
+            }
+        }
+        flushLock.lock();
+        try {
+            // 队列中剩余的记录在写入前按墓碑丢弃
+            failedBatch = withoutDeleted(failedBatch);
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM currency_ledger WHERE user_id = ?", userId);
+                jdbcTemplate.update("DELETE FROM player_wallets WHERE user_id = ?", userId);
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    /**
+     * 获取货币统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("wallets", balances.size());
+        stats.put("pendingEntries", pendingCount.get());
+        stats.put("mutations", mutations.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("flushedEntries", flushedEntries.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("evictedWallets", evictedWallets.sum());
+        return stats;
+    }
+    
+    private void drainPending() {
+        while (true) {
+            List<LedgerEntry> batch = failedBatch;
+            failedBatch = new ArrayList<>();
+            LedgerEntry entry;
+            int dropped = 0;
+            while (batch.size() < flushBatchSize && (entry = pending.poll()) != null) {
+                if (deletedPlayers.containsKey(entry.userId())) {
+                    dropped++;
+                } else {
+                    batch.add(entry);
+                }
+            }
+            pendingCount.addAndGet(-dropped);
+            if (batch.isEmpty()) {
+                if (dropped > 0) {
+                    continue;
+                }
+                return;
+            }
+            try {
+                writeBatch(batch);
+                pendingCount.addAndGet(-batch.size());
+                flushedEntries.add(batch.size());
+                for (LedgerEntry written : batch) {
+                    synchronized (stripe(written.userId())) {
+                        written.wallet().pendingEntries--;
+                    }
+                }
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                failedBatch = batch;
+                return;
+            }
+        }
+    }
+    
+    private long apply(Long userId, CurrencyType currency, long delta, String reason) {
+        // 账本积压过多（通常是数据库不可用）时拒绝新的变动，避免内存无限增长
+        if (pendingCount.get() >= maxPendingEntries) {
+            rejected.increment();
+            throw new IllegalStateException("账本写入积压，请稍后重试");
+        }
+        long balance;
+        long seq;
+        while (true) {
+            Wallet wallet = walletOf(userId);
+            synchronized (stripe(userId)) {
+                // 取到钱包后被淘汰或删除，重新获取
+                if (wallet.evicted) {
+                    continue;
+                }
+                int i = currency.ordinal();
+                balance = Math.addExact(wallet.balances[i], delta);
+                if (balance < 0) {
+                    throw new InsufficientBalanceException("余额不足");
+                }
+                long now = System.currentTimeMillis();
+                wallet.balances[i] = balance;
+                wallet.pendingEntries++;
+                wallet.lastAccessMillis = now;
+                pending.add(new LedgerEntry(wallet, userId, currency, delta, balance, reason, now));
+                seq = sequence.incrementAndGet();
+            }
+            break;
+        }
+        leaderboardService.update(LeaderboardType.of(currency), userId, balance, seq);
+        pushService.notifyCurrencyChanged(userId, currency, balance, seq);
+        pendingCount.incrementAndGet();
+        mutations.increment();
+        return balance;
+    }
+    
+    /**
+     * 获取内存中的钱包，不存在时从数据库加载
+     * 钱包只在账本全部写入后才会淘汰，此时数据库中的余额就是最新值
+     */
+    private Wallet walletOf(Long userId) {
+        if (deletedPlayers.containsKey(userId)) {
+            throw new IllegalStateException("用户不存在");
+        }
+        Wallet wallet = balances.get(userId);
+        if (wallet != null) {
+            return wallet;
+        }
+        Wallet loaded = new Wallet();
+        loaded.lastAccessMillis = System.currentTimeMillis();
+        playerWalletRepository.findById(userId).ifPresent(row -> {
+            loaded.balances[CurrencyType.GOLD.ordinal()] = row.getGold();
+            loaded.balances[CurrencyType.SILVER.ordinal()] = row.getSilver();
+            loaded.balances[CurrencyType.CRYSTAL.ordinal()] = row.getCrystal();
+        });
+        wallet = balances.putIfAbsent(userId, loaded);
+        if (wallet != null) {
+            return wallet;
+        }
+        // 加载期间用户被删除，撤回刚放入的钱包
+        if (deletedPlayers.containsKey(userId)) {
+            synchronized (stripe(userId)) {
+                loaded.evicted = true;
+                balances.remove(userId, loaded);
+            }
+            throw new IllegalStateException("用户不存在");
+        }
+        return loaded;
+    }
+    
+    private void evictIdle(long now) {
+        for (Map.Entry<Long, Wallet> e : balances.entrySet()) {
+            Wallet wallet = e.getValue();
+            synchronized (stripe(e.getKey())) {
+                if (!wallet.evicted && wallet.pendingEntries == 0 && now - wallet.lastAccessMillis > idleEvictMs) {
+                    wallet.evicted = true;
+                    balances.remove(e.getKey(), wallet);
+                    evictedWallets.increment();
+                }
+            }
+        }
+    }
+    
+    private List<LedgerEntry> withoutDeleted(List<LedgerEntry> batch) {
+        List<LedgerEntry> kept = new ArrayList<>(batch.size());
+        for (LedgerEntry entry : batch) {
+            if (!deletedPlayers.containsKey(entry.userId())) {
+                kept.add(entry);
+            }
+        }
+        pendingCount.addAndGet(kept.size() - batch.size());
+        return kept;
+    }
+    
+    private Object stripe(Long userId) {
+        return stripes[(int) (userId & (STRIPES - 1))];
+    }
+    
+    private void writeBatch(List<LedgerEntry> batch) {
+        List<Object[]> ledgerRows = new ArrayList<>(batch.size());
+        // 每个币种只回写每个玩家最后一条记录的余额
+        Map<CurrencyType, Map<Long, LedgerEntry>> latest = new EnumMap<>(CurrencyType.class);
+        for (LedgerEntry entry : batch) {
+            ledgerRows.add(new Object[] {
+                    entry.userId(), entry.currency().name(), entry.delta(), entry.balanceAfter(),
+                    entry.reason(), new Timestamp(entry.createdAt())
+            });
+            latest.computeIfAbsent(entry.currency(), k -> new HashMap<>()).put(entry.userId(), entry);
+        }
+    
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_LEDGER_SQL, ledgerRows);
+            latest.forEach((currency, entries) -> {
+                List<Object[]> walletRows = new ArrayList<>(entries.size());
+                for (LedgerEntry entry : entries.values()) {
+                    walletRows.add(new Object[] {entry.userId(), entry.balanceAfter(), new Timestamp(entry.createdAt())});
+                }
+                jdbcTemplate.batchUpdate(upsertWalletSql(currency), walletRows);
+            });
+        });
+    }
+    
+    private static String upsertWalletSql(CurrencyType currency) {
+        String column = currency.column();
+        return "INSERT INTO player_wallets (user_id, " + column + ", updated_at) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE " + column + " = VALUES(" + column + "), updated_at = VALUES(updated_at)";
+    }
+}
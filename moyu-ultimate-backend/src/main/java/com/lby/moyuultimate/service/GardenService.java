@@ -0,0 +1,530 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.dto.FruitSellRequest;
+import com.lby.moyuultimate.dto.GardenMoveRequest;
+import com.lby.moyuultimate.dto.GardenPlantRequest;
+import com.lby.moyuultimate.entity.CurrencyType;
+import com.lby.moyuultimate.entity.LeaderboardType;
+import com.lby.moyuultimate.game.FruitPrices;
+import com.lby.moyuultimate.game.Garden;
+import com.lby.moyuultimate.game.GardenCell;
+import com.lby.moyuultimate.game.GardenCodec;
+import com.lby.moyuultimate.game.GardenEngine;
+import com.lby.moyuultimate.game.GardenRules;
+import com.lby.moyuultimate.game.HierarchicalTimingWheel;
+import com.lby.moyuultimate.game.ItemCategory;
+import com.lby.moyuultimate.game.MoveResult;
+import com.lby.moyuultimate.game.TreeRipeEvent;
+import com.lby.moyuultimate.repository.GardenSnapshotRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 家园服务：家园状态以服务端为准，每个玩家一个 Garden，操作时在该家园上加锁
+ * 果树结果不做定时轮询，读取或修改家园时按时间戳补算；只有"果树结果"提醒登记到时间轮
+ * 家园按版本号判断是否有修改，定时把有修改的家园编码后批量写入 garden_snapshots
+ */
+@Service
+public class GardenService {
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private BanIndexService banIndexService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private GardenSnapshotRepository gardenSnapshotRepository;
+    
+    @Autowired
+    private CurrencyService currencyService;
+    
+    @Autowired
+    private LeaderboardService leaderboardService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${garden.flush-batch-size:500}")
+    private int flushBatchSize;
+    
+    @Value("${garden.idle-evict-ms:1800000}")
+    private long idleEvictMs;
+    
+    // 已删除用户的墓碑保留时间，不短于token有效期，期间仍持有效token的请求不会重新创建家园
+    @Value("${jwt.expiration:86400000}")
+    private long tombstoneTtlMs;
+    
+    // 每个玩家一行，存在则覆盖（MySQL语法）
+    private static final String UPSERT_SNAPSHOT_SQL =
+            "INSERT INTO garden_snapshots (user_id, format_version, data, updated_at) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE format_version = VALUES(format_version), data = VALUES(data), updated_at = VALUES(updated_at)";
+    
+    private final Map<Long, Garden> gardens = new ConcurrentHashMap<>();
+    
+    // 已删除的玩家 -> 删除时间；加载家园和写入存档时跳过
+    private final Map<Long, Long> deletedPlayers = new ConcurrentHashMap<>();
+    
+    // 存档批量写入与删除互斥，删除完成后不会再有进行中的写入把存档写回
+    private final ReentrantLock snapshotWriteLock = new ReentrantLock();
+    
+    // 结果提醒时间轮，key为玩家ID；访问时在时间轮对象上加锁
+    private final HierarchicalTimingWheel ripeWheel = new HierarchicalTimingWheel(1000, System.currentTimeMillis());
+    
+    private final LongAdder ripeEvents = new LongAdder();
+    private final LongAdder savedSnapshots = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder evictedGardens = new LongAdder();
+    
+    /**
+     * 获取家园
+     */
+    public Map<String, Object> getGarden(String token) {
+        return withPlayerGarden(token, "获取家园失败：", garden -> success(garden, "获取家园成功"));
+    }
+    
+    /**
+     * 合并或移动物品
+     */
+    public Map<String, Object> move(String token, GardenMoveRequest request) {
+        return withPlayerGarden(token, "操作失败：", garden -> {
+            MoveResult result = GardenEngine.move(garden, request.getSx(), request.getSy(), request.getDx(), request.getDy());
+            if (result == MoveResult.NONE) {
+                return error("无效的移动");
+            }
+            int merged = garden.cellAt(request.getDx(), request.getDy());
+            if (result == MoveResult.MERGED && GardenCell.kind(merged) == GardenCell.TREE) {
+                leaderboardService.updateIfHigher(LeaderboardType.TREE_LEVEL, garden.getOwnerId(), GardenCell.level(merged));
+            }
+            Map<String, Object> response = success(garden, "操作成功");
+            response.put("result", result.name());
+            return response;
+        });
+    }
+    
+    /**
+     * 收获场上所有果实和种子到背包
+     */
+    public Map<String, Object> harvestFruits(String token) {
+        return withPlayerGarden(token, "收获失败：", garden -> {
+            int harvested = GardenEngine.harvestFruits(garden);
+            Map<String, Object> response = success(garden, "收获成功");
+            response.put("harvested", harvested);
+            return response;
+        });
+    }
+    
+    /**
+     * 从果树采摘果实（all为false时每棵树只采摘一颗）
+     */
+    public Map<String, Object> harvestTrees(String token, boolean all) {
+        return withPlayerGarden(token, "采集失败：", garden -> {
+            int harvested = GardenEngine.harvestTrees(garden, all ? Integer.MAX_VALUE : 1, System.currentTimeMillis());
+            if (harvested == 0) {
+                return error("没有可采集的果树");
+            }
+            scheduleRipe(garden);
+            Map<String, Object> response = success(garden, "采集成功");
+            response.put("harvested", harvested);
+            return response;
+        });
+    }
+    
+    /**
+     * 从背包放置物品到格子
+     */
+    public Map<String, Object> plant(String token, GardenPlantRequest request) {
+        ItemCategory category;
+        try {
+            category = ItemCategory.fromName(request.getCategory());
+        } catch (IllegalArgumentException e) {
+            return error("放置失败：" + e.getMessage());
+        }
+        int level = request.getLevel() == null ? 0 : request.getLevel();
+        return withPlayerGarden(token, "放置失败：", garden -> {
+            if (!GardenEngine.plant(garden, category, level, request.getX(), request.getY())) {
+                return error("背包中没有该物品或格子已被占用");
+            }
+            if (category == ItemCategory.TREE) {
+                leaderboardService.updateIfHigher(LeaderboardType.TREE_LEVEL, garden.getOwnerId(), level);
+            }
+            return success(garden, "放置成功");
+        });
+    }
+    
+    /**
+     * 生成种子
+     */
+    public Map<String, Object> generateSeed(String token) {
+        return withPlayerGarden(token, "生成种子失败：", garden -> {
+            if (!GardenEngine.generateSeed(garden)) {
+                return error("场地已满，无法生成种子");
+            }
+            return success(garden, "生成种子成功");
+        });
+    }
+    
+    /**
+     * 批量出售背包中的果实，按售价表一次性计入灵晶：一条账本记录、一次背包修改
+     */
+    public Map<String, Object> sellFruits(String token, FruitSellRequest request) {
+        long[] counts = new long[GardenRules.MAX_FRUIT_LEVEL + 1];
+        for (Map.Entry<Integer, Long> entry : request.getFruits().entrySet()) {
+            Integer level = entry.getKey();
+            Long count = entry.getValue();
+            if (level == null || level < 0 || level > GardenRules.MAX_FRUIT_LEVEL || count == null || count < 0) {
+                return error("出售失败：无效的果实等级或数量");
+            }
+            counts[level] = count;
+        }
+        long value;
+        try {
+            value = FruitPrices.totalValue(counts);
+        } catch (ArithmeticException e) {
+            return error("出售失败：出售数量过大");
+        }
+        if (value == 0) {
+            return error("出售失败：没有要出售的果实");
+        }
+        
+        return withPlayerGarden(token, "出售失败：", garden -> {
+            if (!GardenEngine.canRemoveFruits(garden, counts)) {
+                return error("背包中的果实数量不足");
+            }
+            // 先入账再扣除果实：入账失败（账本积压）时背包保持不变
+            long balance = currencyService.credit(garden.getOwnerId(), CurrencyType.CRYSTAL, value, "fruit-sell");
+            GardenEngine.removeFruits(garden, counts);
+            Map<String, Object> response = success(garden, "出售成功");
+            response.put("value", value);
+            response.put("crystal", balance);
+            return response;
+        });
+    }
+    
+    /**
+     * 在玩家家园的锁内执行操作；家园不在内存中时从存档加载
+     * 拿到的家园恰好被淘汰时重新获取，保证修改不会丢失
+     */
+    public <T> T withGarden(Long userId, Function<Garden, T> action) {
+        while (true) {
+            Garden garden = getOrLoad(userId);
+            garden.getLock().lock();
+            try {
+                if (garden.isEvicted()) {
+                    continue;
+                }
+                garden.touch(System.currentTimeMillis());
+                return action.apply(garden);
+            } finally {
+                garden.getLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * 删除玩家家园及存档
+     * 先登记墓碑，之后的加载和存档写入都会跳过该玩家；存档删除与批量写入互斥
+     */
+    public void deleteGarden(Long userId) {
+        deletedPlayers.put(userId, System.currentTimeMillis());
+        Garden garden = gardens.remove(userId);
+        if (garden != null) {
+            garden.getLock().lock();
+            try {
+                garden.markEvicted();
+            } finally {
+                garden.getLock().unlock();
+            }
+        }
+        snapshotWriteLock.lock();
+        try {
+            if (gardenSnapshotRepository.existsById(userId)) {
+                gardenSnapshotRepository.deleteById(userId);
+            }
+        } finally {
+            snapshotWriteLock.unlock();
+        }
+    }
+    
+    /**
+     * 将有修改的家园批量写入数据库，并淘汰长时间未操作且已保存的家园
+     */
+    @Scheduled(fixedDelayString = "${garden.flush-interval-ms:10000}")
+    @PreDestroy
+    public void flush() {
+        long now = System.currentTimeMillis();
+        List<Garden> batch = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Garden garden : gardens.values()) {
+            garden.getLock().lock();
+            try {
+                if (garden.isEvicted()) {
+                    continue;
+                }
+                if (garden.isDirty()) {
+                    batch.add(garden);
+                    versions.add(garden.getVersion());
+                    rows.add(new Object[] {
+                            garden.getOwnerId(),
+                            GardenCodec.FORMAT_VERSION,
+                            GardenCodec.encode(garden, now),
+                            new Timestamp(now)
+                    });
+                } else if (now - garden.getLastAccessMillis() > idleEvictMs) {
+                    garden.markEvicted();
+                    gardens.remove(garden.getOwnerId(), garden);
+                    evictedGardens.increment();
+                }
+            } finally {
+                garden.getLock().unlock();
+            }
+            if (rows.size() >= flushBatchSize) {
+                writeSnapshots(batch, versions, rows);
+            }
+        }
+        writeSnapshots(batch, versions, rows);
+        deletedPlayers.values().removeIf(deletedAt -> now - deletedAt > tombstoneTtlMs);
+    }
+    
+    /**
+     * 推进结果提醒时间轮，到期的家园补算果树并发布 TreeRipeEvent
+     */
+    @Scheduled(fixedDelayString = "${garden.ripe-tick-ms:1000}")
+    public void advanceRipeWheel() {
+        long now = System.currentTimeMillis();
+        List<Long> due = new ArrayList<>();
+        synchronized (ripeWheel) {
+            ripeWheel.advance(now, due::add);
+        }
+        
+        for (Long userId : due) {
+            Garden garden = gardens.get(userId);
+            if (garden == null) {
+                continue;
+            }
+            int ripened;
+            garden.getLock().lock();
+            try {
+                if (garden.isEvicted()) {
+                    continue;
+                }
+                garden.setScheduledRipeMillis(0);
+                ripened = GardenEngine.refresh(garden, now);
+                scheduleRipe(garden);
+            } finally {
+                garden.getLock().unlock();
+            }
+            if (ripened > 0) {
+                ripeEvents.increment();
+                eventPublisher.publishEvent(new TreeRipeEvent(userId, ripened, now));
+            }
+        }
+    }
+    
+    /**
+     * 获取家园统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("gardens", gardens.size());
+        synchronized (ripeWheel) {
+            stats.put("pendingRipeTimers", ripeWheel.size());
+        }
+        stats.put("ripeEvents", ripeEvents.sum());
+        stats.put("savedSnapshots", savedSnapshots.sum());
+        stats.put("savedBytes", savedBytes.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("evictedGardens", evictedGardens.sum());
+        return stats;
+    }
+    
+    /**
+     * 从token解析玩家并在其家园锁内执行操作
+     */
+    private Map<String, Object> withPlayerGarden(String token, String failure, Function<Garden, Map<String, Object>> action) {
+        try {
+            Long userId = jwtService.extractUserId(token);
+            if (userId == null) {
+                return error(failure + "无效的token");
+            }
+            if (banIndexService.isBanned(userId)) {
+                return error(failure + "账号已被封禁");
+            }
+            return withGarden(userId, action);
+        } catch (Exception e) {
+            return error(failure + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取内存中的家园，不存在时从存档加载（没有存档则创建空家园）
+     * 加载在锁外进行，并发加载时以先放入的为准
+     */
+    private Garden getOrLoad(Long userId) {
+        Garden garden = gardens.get(userId);
+        if (garden != null) {
+            return garden;
+        }
+        if (deletedPlayers.containsKey(userId)) {
+            throw new IllegalStateException("用户不存在");
+        }
+        Garden loaded = gardenSnapshotRepository.findById(userId)
+                .map(snapshot -> GardenCodec.decode(userId, snapshot.getData()))
+                .orElseGet(() -> new Garden(userId));
+        Garden existing = gardens.putIfAbsent(userId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        loaded.getLock().lock();
+        try {
+            // 加载期间用户被删除：撤回刚放入的家园
+            if (deletedPlayers.containsKey(userId)) {
+                loaded.markEvicted();
+                gardens.remove(userId, loaded);
+                throw new IllegalStateException("用户不存在");
+            }
+            scheduleRipe(loaded);
+        } finally {
+            loaded.getLock().unlock();
+        }
+        return loaded;
+    }
+    
+    /**
+     * 批量 upsert 家园存档，成功后标记为已保存；失败时保持脏状态，下次重试
+     * 编码之后才被删除的玩家在写入前剔除
+     */
+    private void writeSnapshots(List<Garden> batch, List<Long> versions, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        snapshotWriteLock.lock();
+        try {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                if (deletedPlayers.containsKey(batch.get(i).getOwnerId())) {
+                    batch.remove(i);
+                    versions.remove(i);
+                    rows.remove(i);
+                }
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPSERT_SNAPSHOT_SQL, rows);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Garden garden = batch.get(i);
+                garden.getLock().lock();
+                try {
+                    garden.markSaved(versions.get(i));
+                } finally {
+                    garden.getLock().unlock();
+                }
+                savedBytes.add(((byte[]) rows.get(i)[2]).length);
+            }
+            savedSnapshots.add(rows.size());
+        } catch (DataAccessException e) {
+            flushFailures.increment();
+        } finally {
+            snapshotWriteLock.unlock();
+            batch.clear();
+            versions.clear();
+            rows.clear();
+        }
+    }
+    
+    /**
+     * 家园中最早结果的时间比已登记的提醒更早时，登记到时间轮（调用方需持有家园锁）
+     * 已登记的提醒不取消，到期时重新补算即可
+     */
+    private void scheduleRipe(Garden garden) {
+        long next = garden.getNextRipeMillis();
+        long scheduled = garden.getScheduledRipeMillis();
+        if (next == 0 || (scheduled != 0 && scheduled <= next)) {
+            return;
+        }
+        garden.setScheduledRipeMillis(next);
+        synchronized (ripeWheel) {
+            ripeWheel.schedule(garden.getOwnerId(), next);
+        }
+    }
+    
+    /**
+     * 构建家园视图（调用方需持有家园锁）
+     */
+    private Map<String, Object> toView(Garden garden) {
+        GardenEngine.refresh(garden, System.currentTimeMillis());
+        List<Map<String, Object>> cells = new ArrayList<>();
+        for (int x = 0; x < GardenRules.ROWS; x++) {
+            for (int y = 0; y < GardenRules.COLS; y++) {
+                int cell = garden.cellAt(x, y);
+                int kind = GardenCell.kind(cell);
+                if (kind == GardenCell.EMPTY) {
+                    continue;
+                }
+                Map<String, Object> view = new LinkedHashMap<>();
+                view.put("x", x);
+                view.put("y", y);
+                view.put("kind", GardenCell.kindName(kind));
+                view.put("level", GardenCell.level(cell));
+                if (kind == GardenCell.TREE) {
+                    view.put("fruits", GardenCell.fruits(cell));
+                    view.put("maxFruits", GardenRules.maxFruits(GardenCell.level(cell)));
+                    view.put("growEndTime", garden.growEndAt(x, y));
+                }
+                cells.add(view);
+            }
+        }
+        
+        Map<String, Long> backpack = new LinkedHashMap<>();
+        for (int slot = 0; slot < ItemCategory.BACKPACK_SLOTS; slot++) {
+            long count = garden.backpackCount(slot);
+            if (count > 0) {
+                backpack.put(ItemCategory.keyOfSlot(slot), count);
+            }
+        }
+        
+        Map<String, Object> view = new HashMap<>();
+        view.put("rows", GardenRules.ROWS);
+        view.put("cols", GardenRules.COLS);
+        view.put("cells", cells);
+        view.put("backpack", backpack);
+        view.put("version", garden.getVersion());
+        return view;
+    }
+    
+    private Map<String, Object> success(Garden garden, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", message);
+        response.put("garden", toView(garden));
+        return response;
+    }
+    
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
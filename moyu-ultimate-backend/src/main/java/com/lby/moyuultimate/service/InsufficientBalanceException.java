@@ -0,0 +1,11 @@
+package com.lby.moyuultimate.service;
+
+/**
+ * 扣款时余额不足抛出，余额保持不变
+ */
+public class InsufficientBalanceException extends RuntimeException {
+    
+    public InsufficientBalanceException(String message) {
+        super(message);
+    }
+}
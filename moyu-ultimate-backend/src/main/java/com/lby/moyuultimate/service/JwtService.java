@@ -3,17 +3,25 @@ package com.lby.moyuultimate.service;
 import com.lby.moyuultimate.entity.User;
 import com.lby.moyuultimate.entity.Admin;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 @Service
@@ -25,6 +33,44 @@ public class JwtService {
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+    
+    // 预先计算的签名密钥和可复用的解析器（JwtParser不可变，线程安全）
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    
+    // 已验证token的claims缓存，key为token的SHA-256摘要
+    private final Map<String, CachedClaims> claimsCache = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    
+    /**
+     * 缓存项：已验证的claims及其过期时间
+     */
+    private record CachedClaims(Claims claims, long expiresAtMillis) {}
+    
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        // HS256 要求密钥至少256位，启动时给出明确提示，而不是在第一次签发token时失败
+        if (keyBytes.length < 32) {
+            throw new IllegalStateException("jwt.secret 长度为" + keyBytes.length + "字节，HS256 要求至少32字节");
+        }
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+    
     /**
      * 生成JWT token
      */
@@ -52,7 +98,7 @@ public class JwtService {
      * 获取签名密钥
      */
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
     
     /**
@@ -78,14 +124,68 @@ public class JwtService {
     }
     
     /**
-     * 提取所有claims
+     * 提取所有claims（同一token在有效期内只验证一次签名）
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        String key = digest(token);
+        CachedClaims cached = claimsCache.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                cacheHits.increment();
+                return cached.claims();
+            }
+            // 已过期，交给解析器抛出过期异常
+            claimsCache.remove(key, cached);
+        }
+        
+        cacheMisses.increment();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+        Date exp = claims.getExpiration();
+        if (exp != null) {
+            if (claimsCache.size() >= cacheMaxSize) {
+                evictEntries();
+            }
+            claimsCache.put(key, new CachedClaims(claims, exp.getTime()));
+        }
+        return claims;
+    }
+    
+    /**
+     * 计算token摘要，避免在内存中保存原始token
+     */
+    private static String digest(String token) {
+        MessageDigest md = SHA256.get();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+    
+    /**
+     * 缓存满时先清理过期项，仍然超限则淘汰任意旧项至容量的3/4
+     */
+    private void evictEntries() {
+        long now = System.currentTimeMillis();
+        claimsCache.values().removeIf(c -> c.expiresAtMillis() <= now);
+        int target = cacheMaxSize * 3 / 4;
+        Iterator<String> it = claimsCache.keySet().iterator();
+        while (claimsCache.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+    
+    /**
+     * 获取token缓存统计信息
+     */
+    public Map<String, Object> getCacheStats() {
+        long hits = cacheHits.sum();
+        long misses = cacheMisses.sum();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", claimsCache.size());
+        stats.put("maxSize", cacheMaxSize);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
     }
     
     /**
@@ -133,13 +233,18 @@ public class JwtService {
      * 验证管理员token是否有效
      */
     public Boolean isAdminTokenValid(String token) {
+        boolean valid;
         try {
             Claims claims = extractAllClaims(token);
             String type = claims.get("type", String.class);
-            return "admin".equals(type) && !isTokenExpired(token);
+            valid = "admin".equals(type) && !isTokenExpired(token);
         } catch (Exception e) {
-            return false;
+            valid = false;
+        }
+        if (!valid) {
+            ApiOutcome.badCredentials();
         }
+        return valid;
     }
     
     /**
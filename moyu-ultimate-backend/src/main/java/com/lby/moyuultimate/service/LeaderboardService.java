@@ -0,0 +1,381 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.entity.LeaderboardType;
+import com.lby.moyuultimate.entity.User;
+import com.lby.moyuultimate.game.RankedIndex;
+import com.lby.moyuultimate.repository.LeaderboardEntryRepository;
+import com.lby.moyuultimate.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * 排行榜服务：每个榜单一个内存跳表（见 RankedIndex），查询加读锁、更新加写锁
+ * 更新只标记玩家为脏，定时把脏记录批量写入 leaderboard_entries；启动时从该表重建
+ */
+@Service
+public class LeaderboardService {
+    
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_FRIENDS = 200;
+    
+    private static final String UPSERT_ENTRY_SQL =
+            "INSERT INTO leaderboard_entries (board, user_id, score, updated_at) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE score = VALUES(score), updated_at = VALUES(updated_at)";
+    
+    @Autowired
+    private LeaderboardEntryRepository leaderboardEntryRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Value("${leaderboard.snapshot-batch-size:1000}")
+    private int snapshotBatchSize;
+    
+    private static final class Board {
+        final RankedIndex index = new RankedIndex();
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        // 玩家ID -> 最近一次写入的变动序号，持有写锁时访问；已删除的玩家记为 Long.MAX_VALUE
+        final Map<Long, Long> sequences = new HashMap<>();
+        // 分数变化后尚未写入数据库的玩家
+        final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    }
+    
+    private final Map<LeaderboardType, Board> boards = new EnumMap<>(LeaderboardType.class);
+    
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder snapshotRows = new LongAdder();
+    private final LongAdder snapshotFailures = new LongAdder();
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    
+    public LeaderboardService() {
+        for (LeaderboardType type : LeaderboardType.values()) {
+            boards.put(type, new Board());
+        }
+    }
+    
+    /**
+     * 启动时从快照表重建内存排行
+     */
+    @PostConstruct
+    public void warmUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = leaderboardEntryRepository.streamAllScores()) {
+                rows.forEach(row -> boards.get((LeaderboardType) row[0]).index.put((Long) row[1], (Long) row[2]));
+            }
+        });
+    }
+    
+    /**
+     * 设置玩家分数，序号不大于已写入序号的更新（发布晚于较新变动的旧值）直接丢弃
+     */
+    public void update(LeaderboardType type, Long userId, long score, long sequence) {
+        Board board = boards.get(type);
+        board.lock.writeLock().lock();
+        try {
+            Long last = board.sequences.get(userId);
+            if (last != null && last >= sequence) {
+                return;
+            }
+            board.sequences.put(userId, sequence);
+            board.index.put(userId, score);
+        } finally {
+            board.lock.writeLock().unlock();
+        }
+        board.dirty.add(userId);
+        updates.increment();
+    }
+    
+    /**
+     * 分数高于当前分数时才更新（用于历史最高值类榜单）
+     */
+    public void updateIfHigher(LeaderboardType type, Long userId, long score) {
+        Board board = boards.get(type);
+        board.lock.writeLock().lock();
+        try {
+            Long current = board.index.scoreOf(userId);
+            if (current != null && current >= score) {
+                return;
+            }
+            board.index.put(userId, score);
+        } finally {
+            board.lock.writeLock().unlock();
+        }
+        board.dirty.add(userId);
+        updates.increment();
+    }
+    
+    /**
+     * 从所有榜单移除玩家（删除用户时调用）
+     * 序号记为最大值，删除前已发生、删除后才发布的余额变动不会把玩家加回榜单
+     */
+    public void remove(Long userId) {
+        for (Board board : boards.values()) {
+            board.lock.writeLock().lock();
+            try {
+                board.index.remove(userId);
+                board.sequences.put(userId, Long.MAX_VALUE);
+            } finally {
+                board.lock.writeLock().unlock();
+            }
+            board.dirty.remove(userId);
+        }
+        leaderboardEntryRepository.deleteByUserId(userId);
+    }
+    
+    /**
+     * 玩家名次（从1开始），不在榜上返回0
+     */
+    public int rankOf(LeaderboardType type, Long userId) {
+        Board board = boards.get(type);
+        board.lock.readLock().lock();
+        try {
+            return board.index.rankOf(userId);
+        } finally {
+            board.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 获取排行榜（offset从0开始）
+     */
+    public Map<String, Object> getTop(String typeName, int offset, int limit) {
+        try {
+            LeaderboardType type = parseType(typeName);
+            int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+            Board board = boards.get(type);
+            List<RankedIndex.Entry> entries;
+            int total;
+            board.lock.readLock().lock();
+            try {
+                entries = board.index.range(Math.max(0, offset) + 1, size);
+                total = board.index.size();
+            } finally {
+                board.lock.readLock().unlock();
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("board", type.name());
+            response.put("total", total);
+            response.put("entries", toViews(entries));
+            return response;
+        } catch (Exception e) {
+            return error("获取排行榜失败：" + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取当前玩家的名次
+     */
+    public Map<String, Object> getMyRank(String token, String typeName) {
+        try {
+            LeaderboardType type = parseType(typeName);
+            Long userId = jwtService.extractUserId(token);
+            if (userId == null) {
+                return error("无效的token");
+            }
+            Board board = boards.get(type);
+            int rank;
+            Long score;
+            int total;
+            board.lock.readLock().lock();
+            try {
+                rank = board.index.rankOf(userId);
+                score = board.index.scoreOf(userId);
+                total = board.index.size();
+            } finally {
+                board.lock.readLock().unlock();
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("board", type.name());
+            response.put("userId", userId);
+            response.put("rank", rank);
+            response.put("score", score == null ? 0 : score);
+            response.put("total", total);
+            return response;
+        } catch (Exception e) {
+            return error("获取名次失败：" + e.getMessage());
+        }
+    }
+    
+    /**
+     * 获取指定玩家（例如好友列表）之间的排行，按全服名次排序
+     */
+    public Map<String, Object> getRanksAmong(String typeName, List<Long> userIds) {
+        try {
+            LeaderboardType type = parseType(typeName);
+            if (userIds.size() > MAX_FRIENDS) {
+                return error("一次最多查询" + MAX_FRIENDS + "名玩家");
+            }
+            Board board = boards.get(type);
+            List<RankedIndex.Entry> entries = new ArrayList<>(userIds.size());
+            board.lock.readLock().lock();
+            try {
+                for (Long userId : userIds) {
+                    int rank = board.index.rankOf(userId);
+                    if (rank > 0) {
+                        entries.add(new RankedIndex.Entry(userId, board.index.scoreOf(userId), rank));
+                    }
+                }
+            } finally {
+                board.lock.readLock().unlock();
+            }
+            entries.sort(Comparator.comparingInt(RankedIndex.Entry::rank));
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("board", type.name());
+            response.put("entries", toViews(entries));
+            return response;
+        } catch (Exception e) {
+            return error("获取排行失败：" + e.getMessage());
+        }
+    }
+    
+    /**
+     * 把分数有变化的玩家批量写入快照表
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.snapshot-interval-ms:60000}")
+    @PreDestroy
+    public void snapshot() {
+        snapshotLock.lock();
+        try {
+            writeDirtyEntries();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+    
+    private void writeDirtyEntries() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (Map.Entry<LeaderboardType, Board> entry : boards.entrySet()) {
+            Board board = entry.getValue();
+            List<Long> ids = new ArrayList<>();
+            for (Long id : board.dirty) {
+                if (board.dirty.remove(id)) {
+                    ids.add(id);
+                }
+            }
+            for (int i = 0; i < ids.size(); i += snapshotBatchSize) {
+                List<Long> batch = ids.subList(i, Math.min(i + snapshotBatchSize, ids.size()));
+                List<Object[]> rows = new ArrayList<>(batch.size());
+                board.lock.readLock().lock();
+                try {
+                    for (Long id : batch) {
+                        Long score = board.index.scoreOf(id);
+                        if (score != null) {
+                            rows.add(new Object[] {entry.getKey().name(), id, score, now});
+                        }
+                    }
+                } finally {
+                    board.lock.readLock().unlock();
+                }
+                try {
+                    jdbcTemplate.batchUpdate(UPSERT_ENTRY_SQL, rows);
+                    snapshotRows.add(rows.size());
+                } catch (DataAccessException e) {
+                    // 写入失败的玩家重新标记为脏，下次重试
+                    snapshotFailures.increment();
+                    board.dirty.addAll(batch);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 获取排行榜统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        for (Map.Entry<LeaderboardType, Board> entry : boards.entrySet()) {
+            Board board = entry.getValue();
+            board.lock.readLock().lock();
+            try {
+                stats.put(entry.getKey().name().toLowerCase() + "Players", board.index.size());
+            } finally {
+                board.lock.readLock().unlock();
+            }
+            stats.put(entry.getKey().name().toLowerCase() + "Dirty", board.dirty.size());
+        }
+        stats.put("updates", updates.sum());
+        stats.put("snapshotRows", snapshotRows.sum());
+        stats.put("snapshotFailures", snapshotFailures.sum());
+        return stats;
+    }
+    
+    private static LeaderboardType parseType(String typeName) {
+        try {
+            return LeaderboardType.valueOf(typeName.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("未知的排行榜：" + typeName);
+        }
+    }
+    
+    /**
+     * 补充玩家名称（一次批量查询）
+     */
+    private List<Map<String, Object>> toViews(List<RankedIndex.Entry> entries) {
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (RankedIndex.Entry entry : entries) {
+            ids.add(entry.userId());
+        }
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepository.findAllById(ids)) {
+            users.put(user.getId(), user);
+        }
+        
+        List<Map<String, Object>> views = new ArrayList<>(entries.size());
+        for (RankedIndex.Entry entry : entries) {
+            User user = users.get(entry.userId());
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("rank", entry.rank());
+            view.put("userId", entry.userId());
+            view.put("username", user != null ? user.getUsername() : null);
+            view.put("displayName", user != null ? user.getDisplayName() : null);
+            view.put("score", entry.score());
+            views.add(view);
+        }
+        return views;
+    }
+    
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
+}
@@ -0,0 +1,223 @@
+package com.lby.moyuultimate.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录、注册与用户名可用性检查限流：在查库和BCrypt之前按用户名和客户端IP拒绝过于频繁的尝试
+ * 每个键只保存一个时间戳（令牌桶的GCRA形式：下一个令牌的理论到达时间），命中已有键时不分配对象；
+ * 键分片存放在按访问顺序排列的表中，每个分片有容量上限，满时淘汰最久未访问的键，
+ * 令牌已恢复满的键等同于不存在，由定时任务清理。
+ * 单个IP伪造大量用户名挤掉其他键时，会先被IP限流拦住
+ */
+@Service
+public class LoginRateLimiter {
+    
+    private static final int SHARDS = 64;
+    
+    @Value("${auth.rate-limit.enabled:true}")
+    private boolean enabled = true;
+    
+    @Value("${auth.rate-limit.max-keys:100000}")
+    private int maxKeys = 100000;
+    
+    @Value("${auth.rate-limit.login-user-burst:5}")
+    private int loginUserBurst = 5;
+    
+    @Value("${auth.rate-limit.login-user-per-minute:5}")
+    private int loginUserPerMinute = 5;
+    
+    @Value("${auth.rate-limit.login-ip-burst:20}")
+    private int loginIpBurst = 20;
+    
+    @Value("${auth.rate-limit.login-ip-per-minute:60}")
+    private int loginIpPerMinute = 60;
+    
+    @Value("${auth.rate-limit.register-ip-burst:5}")
+    private int registerIpBurst = 5;
+    
+    @Value("${auth.rate-limit.register-ip-per-minute:5}")
+    private int registerIpPerMinute = 5;
+    
+    @Value("${auth.rate-limit.availability-ip-burst:20}")
+    private int availabilityIpBurst = 20;
+    
+    @Value("${auth.rate-limit.availability-ip-per-minute:30}")
+    private int availabilityIpPerMinute = 30;
+    
+    private Limiter userLogins;
+    private Limiter adminLogins;
+    private Limiter ipLogins;
+    private Limiter ipRegistrations;
+    private Limiter ipAvailabilityChecks;
+    
+    @PostConstruct
+    void init() {
+        int shardCapacity = Math.max(maxKeys / SHARDS, 1);
+        userLogins = new Limiter(loginUserBurst, loginUserPerMinute, shardCapacity);
+        adminLogins = new Limiter(loginUserBurst, loginUserPerMinute, shardCapacity);
+        ipLogins = new Limiter(loginIpBurst, loginIpPerMinute, shardCapacity);
+        ipRegistrations = new Limiter(registerIpBurst, registerIpPerMinute, shardCapacity);
+        ipAvailabilityChecks = new Limiter(availabilityIpBurst, availabilityIpPerMinute, shardCapacity);
+    }
+    
+    /**
+     * 用户登录：同一IP和同一用户名都计数
+     */
+    public void checkLogin(String username, String clientIp) {
+        if (enabled) {
+            acquire(ipLogins, clientIp);
+            acquire(userLogins, normalize(username));
+        }
+    }
+    
+    /**
+     * 管理员登录：与用户登录共用IP计数，用户名单独计数
+     */
+    public void checkAdminLogin(String username, String clientIp) {
+        if (enabled) {
+            acquire(ipLogins, clientIp);
+            acquire(adminLogins, normalize(username));
+        }
+    }
+    
+    /**
+     * 用户注册：按IP计数
+     */
+    public void checkRegister(String clientIp) {
+        if (enabled) {
+            acquire(ipRegistrations, clientIp);
+        }
+    }
+    
+    /**
+     * 用户名可用性检查：按IP计数，限制批量探测已注册的用户名
+     */
+    public void checkAvailability(String clientIp) {
+        if (enabled) {
+            acquire(ipAvailabilityChecks, clientIp);
+        }
+    }
+    
+    /**
+     * 清理令牌已恢复满的键
+     */
+    @Scheduled(fixedDelayString = "${auth.rate-limit.sweep-interval-ms:60000}")
+    public void evictIdle() {
+        if (userLogins == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        userLogins.evictIdle(now);
+        adminLogins.evictIdle(now);
+        ipLogins.evictIdle(now);
+        ipRegistrations.evictIdle(now);
+        ipAvailabilityChecks.evictIdle(now);
+    }
+    
+    /**
+     * 当前跟踪的键数
+     */
+    public int getTrackedKeys() {
+        return userLogins.size() + adminLogins.size() + ipLogins.size() + ipRegistrations.size()
+                + ipAvailabilityChecks.size();
+    }
+    
+    private static void acquire(Limiter limiter, String key) {
+        if (key == null) {
+            return;
+        }
+        long waitNanos = limiter.tryAcquire(key, System.nanoTime());
+        if (waitNanos > 0) {
+            throw new LoginThrottledException(Math.max(TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L), 1));
+        }
+    }
+    
+    // 用户名按小写计数，避免大小写变体绕过（MySQL默认排序规则下它们是同一个用户）
+    private static String normalize(String username) {
+        return username != null ? username.toLowerCase(Locale.ROOT) : null;
+    }
+    
+    /**
+     * 单个维度的限流表：每个键保存下一个令牌的理论到达时间（纳秒）
+     * 到达时间不晚于 当前时间 + (burst - 1) * 间隔 时放行，并推后一个间隔
+     */
+    static final class Limiter {
+    
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private final Map<String, long[]>[] shards;
+    
+        @SuppressWarnings("unchecked")
+        Limiter(int burst, int perMinute, int shardCapacity) {
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(perMinute, 1);
+            this.toleranceNanos = intervalNanos * (Math.max(burst, 1) - 1);
+            this.shards = new Map[SHARDS];
+            for (int i = 0; i < SHARDS; i++) {
+                shards[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+                        return size() > shardCapacity;
+                    }
+                };
+            }
+        }
+    
+        /**
+         * 放行返回0，否则返回需要等待的纳秒数
+         */
+        long tryAcquire(String key, long now) {
+            Map<String, long[]> shard = shardOf(key);
+            synchronized (shard) {
+                long[] arrival = shard.get(key);
+                long tat = arrival != null ? Math.max(arrival[0], now) : now;
+                long waitNanos = tat - toleranceNanos - now;
+                if (waitNanos > 0) {
+                    return waitNanos;
+                }
+                if (arrival == null) {
+                    shard.put(key, new long[] {tat + intervalNanos});
+                } else {
+                    arrival[0] = tat + intervalNanos;
+                }
+                return 0;
+            }
+        }
+    
+        void evictIdle(long now) {
+            for (Map<String, long[]> shard : shards) {
+                synchronized (shard) {
+                    Iterator<long[]> it = shard.values().iterator();
+                    while (it.hasNext()) {
+                        if (it.next()[0] - now <= 0) {
+                            it.remove();
+                        }
+                    }
+                }
+            }
+        }
+    
+        int size() {
+            int size = 0;
+            for (Map<String, long[]> shard : shards) {
+                synchronized (shard) {
+                    size += shard.size();
+                }
+            }
+            return size;
+        }
+    
+        private Map<String, long[]> shardOf(String key) {
+            int h = key.hashCode();
+            return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+        }
+    }
+}
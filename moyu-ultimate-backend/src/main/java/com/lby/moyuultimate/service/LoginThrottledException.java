@@ -0,0 +1,18 @@
+package com.lby.moyuultimate.service;
+
+/**
+ * 登录、注册或用户名可用性检查过于频繁时抛出，由控制器统一返回429
+ */
+public class LoginThrottledException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("尝试过于频繁，请" + retryAfterSeconds + "秒后重试");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,278 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 已占用的用户名和邮箱（布隆过滤器）
+ * 过滤器判定"一定未占用"时注册跳过存在性查询，判定"可能已占用"时仍查库确认，最终由唯一约束兜底。
+ * 过滤器只按小写记录，与数据库排序规则并不完全一致（见 normalize），结论只是提示，不作为最终结果。
+ * 启动时从数据库预热，注册成功后写入；布隆过滤器不能删除，删除用户只计数，
+ * 已删除的名字在重建前仍判定为"可能已占用"。删除较多或写入超过预估容量（误判率上升）时定时重建
+ */
+@Service
+public class NameAvailabilityService {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${auth.availability.expected-entries:1000000}")
+    private long expectedEntries = 1_000_000;
+    
+    @Value("${auth.availability.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+    
+    @Value("${auth.availability.rebuild-stale-ratio:0.1}")
+    private double rebuildStaleRatio = 0.1;
+    
+    /** 当前过滤器，重建完成后整体替换 */
+    private volatile Filters current;
+    /** 重建期间的新过滤器，注册同时写入，避免替换后丢失 */
+    private volatile Filters next;
+    
+    // 重建时持有，期间流式读取整张用户表
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    
+    private final LongAdder definitelyFree = new LongAdder();
+    private final LongAdder maybeTaken = new LongAdder();
+    private final AtomicLong rebuilds = new AtomicLong();
+    
+    private static final class Filters {
+        final BloomFilter usernames;
+        final BloomFilter emails;
+        // 删除后仍留在过滤器中的名字数
+        final LongAdder stale = new LongAdder();
+    
+        Filters(long capacity, double falsePositiveRate) {
+            usernames = new BloomFilter(capacity, falsePositiveRate);
+            emails = new BloomFilter(capacity, falsePositiveRate);
+        }
+    
+        void add(String username, String email) {
+            usernames.put(normalize(username));
+            if (email != null && !email.isEmpty()) {
+                emails.put(normalize(email));
+            }
+        }
+    }
+    
+    @PostConstruct
+    public void warmUp() {
+        rebuild(expectedEntries);
+    }
+    
+    /**
+     * 用户名可能已被占用（false表示一定未被占用）
+     */
+    public boolean mightBeTakenUsername(String username) {
+        return count(current.usernames.mightContain(normalize(username)));
+    }
+    
+    /**
+     * 邮箱可能已被使用（false表示一定未被使用）
+     */
+    public boolean mightBeTakenEmail(String email) {
+        return count(current.emails.mightContain(normalize(email)));
+    }
+    
+    /**
+     * 注册成功后记录用户名和邮箱
+     * 先写重建中的过滤器再写当前过滤器：读到 next 为空时重建要么尚未开始（之后的全表读取能读到该用户），
+     * 要么已替换 current（写入的就是新过滤器）
+     */
+    public void add(String username, String email) {
+        Filters rebuilding = next;
+        if (rebuilding != null) {
+            rebuilding.add(username, email);
+        }
+        current.add(username, email);
+    }
+    
+    /**
+     * 删除用户后记录一个过期名字，累计较多时重建
+     */
+    public void markDeleted() {
+        current.stale.increment();
+    }
+    
+    /**
+     * 删除较多或写入超过预估容量时重建过滤器
+     */
+    @Scheduled(fixedDelayString = "${auth.availability.rebuild-check-interval-ms:600000}")
+    public void rebuildIfNeeded() {
+        Filters filters = current;
+        if (filters == null) {
+            return;
+        }
+        long entries = filters.usernames.getInsertions();
+        boolean tooStale = filters.stale.sum() > entries * rebuildStaleRatio;
+        boolean overCapacity = entries > filters.usernames.getCapacity();
+        if (tooStale || overCapacity) {
+            // 容量按当前数据量的两倍预留
+            rebuild(Math.max(expectedEntries, entries * 2));
+        }
+    }
+    
+    /**
+     * 过滤器状态
+     */
+    public Map<String, Object> getStats() {
+        Filters filters = current;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("usernames", filters.usernames.getInsertions());
+        stats.put("emails", filters.emails.getInsertions());
+        stats.put("capacity", filters.usernames.getCapacity());
+        stats.put("bitsPerFilter", filters.usernames.getBitCount());
+        stats.put("hashFunctions", filters.usernames.getHashCount());
+        stats.put("expectedFalsePositiveRate", filters.usernames.expectedFalsePositiveRate());
+        stats.put("stale", filters.stale.sum());
+        stats.put("definitelyFree", definitelyFree.sum());
+        stats.put("maybeTaken", maybeTaken.sum());
+        stats.put("rebuilds", rebuilds.get());
+        return stats;
+    }
+    
+    private boolean count(boolean mightContain) {
+        (mightContain ? maybeTaken : definitelyFree).increment();
+        return mightContain;
+    }
+    
+    /**
+     * 从数据库重建过滤器；先替换 current 再清除 next，重建期间注册的名字不会只写入被丢弃的过滤器
+     */
+    private void rebuild(long capacity) {
+        rebuildLock.lock();
+        try {
+            Filters filters = new Filters(capacity, falsePositiveRate);
+            next = filters;
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    try (Stream<Object[]> rows = userRepository.streamUsernamesAndEmails()) {
+                        rows.forEach(row -> filters.add((String) row[0], (String) row[1]));
+                    }
+                });
+                current = filters;
+                rebuilds.incrementAndGet();
+            } finally {
+                next = null;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+    
+    // 数据库排序规则（utf8mb4_unicode_ci）不区分大小写，也忽略重音等差异（"José"与"jose"冲突），
+    // 这里只按小写记录：大小写变体不会漏判，重音等变体可能被判为"一定未占用"，注册时由唯一约束拒绝
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * 位数组按预估容量和误判率计算：m = -n·ln(p) / ln(2)²，k = m/n·ln(2)
+     * 字符串取64位哈希后用双重哈希生成k个位置，读写都是无锁的原子操作
+     */
+    static final class BloomFilter {
+    
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final long capacity;
+        private final LongAdder insertions = new LongAdder();
+    
+        BloomFilter(long capacity, double falsePositiveRate) {
+            this.capacity = Math.max(capacity, 1);
+            double bits = -this.capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+            int wordCount = (int) Math.min(Math.max((long) Math.ceil(bits / 64), 1), Integer.MAX_VALUE - 8);
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount * 64;
+            this.hashCount = (int) Math.max(Math.round((double) bitCount / this.capacity * Math.log(2)), 1);
+        }
+    
+        void put(String key) {
+            long hash = hash64(key);
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long value = words.get(word);
+                while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                    value = words.get(word);
+                }
+            }
+            insertions.increment();
+        }
+    
+        boolean mightContain(String key) {
+            long hash = hash64(key);
+            long h1 = hash;
+            long h2 = mix(hash) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    
+        long getInsertions() {
+            return insertions.sum();
+        }
+    
+        long getCapacity() {
+            return capacity;
+        }
+    
+        long getBitCount() {
+            return bitCount;
+        }
+    
+        int getHashCount() {
+            return hashCount;
+        }
+    
+        /** 按当前写入数估算的误判率 (1 - e^(-kn/m))^k */
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashCount * getInsertions() / bitCount), hashCount);
+        }
+    
+        // FNV-1a 逐字符累加后再混合，不需要把字符串编码为字节数组
+        private static long hash64(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+    
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
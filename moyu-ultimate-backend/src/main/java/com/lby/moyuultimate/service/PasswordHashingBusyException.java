@@ -0,0 +1,11 @@
+package com.lby.moyuultimate.service;
+
+/**
+ * 密码哈希线程池已满时抛出，由控制器统一返回503
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+    
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
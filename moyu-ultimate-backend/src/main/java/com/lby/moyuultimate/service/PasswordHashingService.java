@@ -0,0 +1,271 @@
+package com.lby.moyuultimate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 密码哈希服务
+ * BCrypt计算在独立的有界线程池中执行，线程数与CPU核数一致；排队已满时立即拒绝，
+ * 避免登录高峰时所有Tomcat线程都被BCrypt占满，其他接口无法响应。
+ */
+@Service
+public class PasswordHashingService {
+    
+    /** 校准目标耗时上限（毫秒）与最高强度 */
+    static final long MAX_CALIBRATION_TARGET_MS = 1000;
+    static final int MAX_CALIBRATION_STRENGTH = 16;
+    // 单个强度的测量最多约为目标耗时的4倍
+    private static final long CALIBRATION_TIMEOUT_MS = 4 * MAX_CALIBRATION_TARGET_MS + 2000;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Value("${auth.hashing.threads:0}")
+    private int threads;
+    
+    @Value("${auth.hashing.queue-capacity:64}")
+    private int queueCapacity;
+    
+    @Value("${auth.hashing.timeout-ms:5000}")
+    private long timeoutMs;
+    
+    private ThreadPoolExecutor executor;
+    
+    private final LatencyHistogram encodeLatency = new LatencyHistogram();
+    private final LatencyHistogram matchLatency = new LatencyHistogram();
+    private final LongAdder rejected = new LongAdder();
+    
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * 加密密码
+     */
+    public String encode(String rawPassword) {
+        return execute(() -> passwordEncoder.encode(rawPassword), encodeLatency);
+    }
+    
+    /**
+     * 校验密码
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return execute(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchLatency);
+    }
+    
+    /**
+     * 判断哈希是否需要升级到当前的算法和强度
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+    
+    /**
+     * 在后台线程中重新加密密码，不阻塞当前请求；线程池繁忙时放弃，下次登录时再迁移
+     */
+    public void rehashInBackground(String rawPassword, Consumer<String> onEncoded) {
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                String encoded = passwordEncoder.encode(rawPassword);
+                encodeLatency.record(System.nanoTime() - start);
+                try {
+                    onEncoded.accept(encoded);
+                } catch (RuntimeException e) {
+                    // 迁移失败不影响登录，下次登录时重试
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+        }
+    }
+    
+    /**
+     * 校准BCrypt强度：依次测量各强度单次哈希耗时，推荐最接近目标耗时的强度
+     * 测量在哈希线程池中逐个强度执行，与登录共享并发上限；目标耗时和强度都有上限，
+     * 强度每加1耗时翻倍，预计耗时超过目标4倍时不再测量
+     */
+    public Map<String, Object> calibrate(long targetMs) {
+        if (targetMs < 1 || targetMs > MAX_CALIBRATION_TARGET_MS) {
+            Map<String, Object> errorResponse = new LinkedHashMap<>();
+            errorResponse.put("error", "targetMs 必须在1到" + MAX_CALIBRATION_TARGET_MS + "之间");
+            return errorResponse;
+        }
+        Map<Integer, Double> millisByStrength = new LinkedHashMap<>();
+        int recommended = 4;
+        double bestDiff = Double.MAX_VALUE;
+        double previousMillis = 0;
+        // 校准耗时不计入登录/注册的耗时统计
+        LatencyHistogram calibrationLatency = new LatencyHistogram();
+        
+        for (int strength = 4; strength <= MAX_CALIBRATION_STRENGTH; strength++) {
+            if (previousMillis * 2 > targetMs * 4) {
+                break;
+            }
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+            // 耗时较长的强度只测一次
+            int rounds = previousMillis * 2 > 100 ? 1 : 3;
+            double millis = execute(() -> {
+                String hash = encoder.encode("calibration");
+                long start = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    encoder.matches("calibration", hash);
+                }
+                return (System.nanoTime() - start) / 1_000_000.0 / rounds;
+            }, calibrationLatency, CALIBRATION_TIMEOUT_MS);
+            millisByStrength.put(strength, millis);
+            previousMillis = millis;
+            
+            double diff = Math.abs(millis - targetMs);
+            if (diff < bestDiff) {
+                bestDiff = diff;
+                recommended = strength;
+            }
+            if (millis > targetMs * 2) {
+                break;
+            }
+        }
+        
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("targetMs", targetMs);
+        result.put("recommendedStrength", recommended);
+        result.put("millisByStrength", millisByStrength);
+        return result;
+    }
+    
+    /**
+     * 获取线程池与耗时统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", executor.getCorePoolSize());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("rejected", rejected.sum());
+        stats.put("encodeLatencyMs", encodeLatency.snapshot());
+        stats.put("matchLatencyMs", matchLatency.snapshot());
+        return stats;
+    }
+    
+    /**
+     * 当前排队的任务数
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+    
+    private <T> T execute(Callable<T> task, LatencyHistogram histogram) {
+        return execute(task, histogram, timeoutMs);
+    }
+    
+    private <T> T execute(Callable<T> task, LatencyHistogram histogram, long timeoutMs) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    histogram.record(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException("服务器繁忙，请稍后重试");
+        }
+        
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new PasswordHashingBusyException("服务器繁忙，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("密码校验被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+    
+    /**
+     * 固定分桶的耗时直方图（单位毫秒）
+     */
+    static class LatencyHistogram {
+        
+        private static final long[] BOUNDS_MS = {10, 25, 50, 100, 250, 500, 1000, 2500};
+        
+        private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        
+        LatencyHistogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+        
+        void record(long nanos) {
+            long ms = nanos / 1_000_000;
+            int i = 0;
+            while (i < BOUNDS_MS.length && ms > BOUNDS_MS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            count.increment();
+            totalNanos.add(nanos);
+        }
+        
+        Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            long n = count.sum();
+            snapshot.put("count", n);
+            snapshot.put("mean", n == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / n);
+            for (int i = 0; i < BOUNDS_MS.length; i++) {
+                snapshot.put("le_" + BOUNDS_MS[i], buckets[i].sum());
+            }
+            snapshot.put("le_inf", buckets[BOUNDS_MS.length].sum());
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 在线状态服务
+ * 在线状态保存在按用户ID分片的内存注册表中，由登录和心跳维持，超过TTL未收到心跳即视为离线。
+ * 数据库中的is_online和last_login_time由定时任务批量回写，登录/登出不再逐条更新用户行。
+ */
+@Service
+public class PresenceService {
+    
+    private static final int SHARD_COUNT = 16;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private PushService pushService;
+    
+    @Value("${presence.ttl-ms:90000}")
+    private long ttlMs;
+    
+    @Value("${presence.flush-batch-size:500}")
+    private int flushBatchSize;
+    
+    // 用户ID -> 最后心跳时间（毫秒）
+    @SuppressWarnings("unchecked")
+    private final Map<Long, Long>[] shards = new Map[SHARD_COUNT];
+    
+    private final AtomicLong onlineCount = new AtomicLong();
+    
+    // 待回写数据库的变更：登录时间（精确到秒）、上线与离线
+    private final Map<Long, LocalDateTime> pendingLogins = new ConcurrentHashMap<>();
+    private final Set<Long> pendingOnline = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingOffline = ConcurrentHashMap.newKeySet();
+    
+    public PresenceService() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+    
+    /**
+     * 启动时内存注册表为空，清除数据库中残留的在线标记
+     */
+    @PostConstruct
+    void resetStaleOnlineFlags() {
+        userRepository.markAllOffline();
+    }
+    
+    /**
+     * 用户登录
+     */
+    public void login(Long userId, LocalDateTime loginTime) {
+        if (touch(userId)) {
+            pushService.notifyOnline(userId, true);
+        }
+        pendingLogins.put(userId, loginTime.truncatedTo(ChronoUnit.SECONDS));
+        pendingOffline.remove(userId);
+        pendingOnline.add(userId);
+    }
+    
+    /**
+     * 心跳，维持在线状态
+     */
+    public void heartbeat(Long userId) {
+        if (touch(userId)) {
+            pendingOffline.remove(userId);
+            pendingOnline.add(userId);
+            pushService.notifyOnline(userId, true);
+        }
+    }
+    
+    /**
+     * 用户登出或被强制下线
+     */
+    public void logout(Long userId) {
+        if (shard(userId).remove(userId) != null) {
+            onlineCount.decrementAndGet();
+            pushService.notifyOnline(userId, false);
+        }
+        pendingOnline.remove(userId);
+        pendingOffline.add(userId);
+    }
+    
+    /**
+     * 判断用户是否在线
+     */
+    public boolean isOnline(Long userId) {
+        Long lastSeen = shard(userId).get(userId);
+        return lastSeen != null && System.currentTimeMillis() - lastSeen < ttlMs;
+    }
+    
+    /**
+     * 当前在线人数（O(1)）
+     */
+    public long getOnlineCount() {
+        return onlineCount.get();
+    }
+    
+    /**
+     * 清理超过TTL未心跳的用户
+     */
+    @Scheduled(fixedDelayString = "${presence.sweep-interval-ms:15000}")
+    public void expireStale() {
+        long deadline = System.currentTimeMillis() - ttlMs;
+        for (Map<Long, Long> shard : shards) {
+            Iterator<Map.Entry<Long, Long>> it = shard.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Long> entry = it.next();
+                if (entry.getValue() < deadline && shard.remove(entry.getKey(), entry.getValue())) {
+                    onlineCount.decrementAndGet();
+                    pendingOffline.add(entry.getKey());
+                    pushService.notifyOnline(entry.getKey(), false);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 将在线状态与登录时间批量回写数据库
+     */
+    @Scheduled(fixedDelayString = "${presence.flush-interval-ms:5000}")
+    @PreDestroy
+    public void flush() {
+        // 同一秒内登录的用户合并为一条UPDATE
+        Map<LocalDateTime, List<Long>> loginsBySecond = new HashMap<>();
+        for (Map.Entry<Long, LocalDateTime> entry : pendingLogins.entrySet()) {
+            if (pendingLogins.remove(entry.getKey(), entry.getValue())) {
+                loginsBySecond.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        loginsBySecond.forEach((time, ids) -> forEachBatch(ids, batch -> userRepository.updateLastLoginTime(batch, time)));
+        
+        forEachBatch(drainKeys(pendingOnline), batch -> userRepository.updateOnlineStatus(batch, true));
+        forEachBatch(drainKeys(pendingOffline), batch -> userRepository.updateOnlineStatus(batch, false));
+    }
+    
+    /**
+     * 获取在线状态统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("online", onlineCount.get());
+        stats.put("pendingLogins", pendingLogins.size());
+        stats.put("pendingOnline", pendingOnline.size());
+        stats.put("pendingOffline", pendingOffline.size());
+        stats.put("ttlMs", ttlMs);
+        return stats;
+    }
+    
+    /**
+     * 刷新最后心跳时间，返回是否为新上线
+     */
+    private boolean touch(Long userId) {
+        if (shard(userId).put(userId, System.currentTimeMillis()) == null) {
+            onlineCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+    
+    private Map<Long, Long> shard(Long userId) {
+        return shards[(int) (userId & (SHARD_COUNT - 1))];
+    }
+    
+    private static List<Long> drainKeys(Set<Long> set) {
+        List<Long> ids = new ArrayList<>();
+        for (Long id : set) {
+            if (set.remove(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+    
+    private void forEachBatch(List<Long> ids, Consumer<List<Long>> action) {
+        for (int i = 0; i < ids.size(); i += flushBatchSize) {
+            action.accept(ids.subList(i, Math.min(i + flushBatchSize, ids.size())));
+        }
+    }
+}
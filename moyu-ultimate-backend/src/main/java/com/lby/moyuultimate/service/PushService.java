@@ -0,0 +1,440 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.entity.CurrencyType;
+import com.lby.moyuultimate.game.TreeRipeEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 服务端推送（SSE）：玩家频道推送果树结果、余额变动、封禁事件，管理员频道推送用户在线与封禁变化
+ * 发布事件只写入订阅者的待发送表（同一key只保留最新一条）并提交发送任务，不阻塞调用方；
+ * 每个订阅者同一时间最多一个发送任务，突发事件在发送前被合并。
+ * 发送是阻塞的servlet写，单次写入超过阈值的订阅者改由单独的慢速线程池发送，
+ * 不占用其他连接的发送线程；写入时间上限由 server.tomcat.connection-timeout 决定，超时后连接关闭
+ */
+@Service
+public class PushService {
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private BanIndexService banIndexService;
+    
+    @Value("${push.max-connections:50000}")
+    private int maxConnections = 50000;
+    
+    @Value("${push.timeout-ms:3600000}")
+    private long timeoutMs = 3600000;
+    
+    @Value("${push.max-pending-per-subscriber:256}")
+    private int maxPendingPerSubscriber = 256;
+    
+    @Value("${push.slow-send-ms:200}")
+    private long slowSendMs = 200;
+    
+    @Value("${push.ticket-ttl-ms:30000}")
+    private long ticketTtlMs = 30000;
+    
+    // sequence 大于0时，同一key只接受比已入队事件更新的序号
+    private record PendingEvent(String name, Object data, boolean closeAfter, long sequence) {
+        PendingEvent(String name, Object data, boolean closeAfter) {
+            this(name, data, closeAfter, 0);
+        }
+    }
+    
+    private static final class Subscriber {
+        final Long userId; // 管理员频道为null
+        final SseEmitter emitter;
+        // 待发送事件，key相同的事件只保留最新一条；访问时在订阅者上加锁
+        Map<String, PendingEvent> pending = new LinkedHashMap<>();
+        // 带序号事件的key -> 已入队的最大序号；访问时在订阅者上加锁
+        final Map<String, Long> sequences = new HashMap<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        // 曾出现过慢写入，之后的发送任务交给慢速线程池
+        volatile boolean slow;
+    
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+    
+    // 订阅票据：EventSource 不能设置请求头，先用请求头中的token换取短期一次性票据，URL中只出现票据
+    private record Ticket(Long userId, long expiresAt) {} // 管理员票据的userId为null
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    
+    private final Map<Long, Set<Subscriber>> userSubscribers = new ConcurrentHashMap<>();
+    private final Set<Subscriber> adminSubscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connections = new AtomicInteger();
+    
+    // 每个订阅者最多排队一个任务，因此队列长度不超过连接数
+    private final ExecutorService dispatcher;
+    // 慢速订阅者的发送任务，阻塞的写入不影响其他连接
+    private final ExecutorService slowDispatcher;
+    
+    private final LongAdder published = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder slowSubscribers = new LongAdder();
+    
+    public PushService() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        this.dispatcher = newDispatcher(threads, "push-dispatcher");
+        this.slowDispatcher = newDispatcher(threads * 4, "push-slow-dispatcher");
+    }
+    
+    /**
+     * 为玩家签发订阅票据，token无效或已封禁返回null
+     */
+    public String issueUserTicket(String token) {
+        Long userId = jwtService.extractUserId(token);
+        if (userId == null || banIndexService.isBanned(userId)) {
+            return null;
+        }
+        return issueTicket(userId);
+    }
+    
+    /**
+     * 为管理员签发订阅票据，token无效返回null
+     */
+    public String issueAdminTicket(String token) {
+        if (!jwtService.isAdminTokenValid(token)) {
+            return null;
+        }
+        return issueTicket(null);
+    }
+    
+    /**
+     * 玩家订阅，票据无效、已使用、已过期或玩家已封禁返回null
+     */
+    public SseEmitter subscribeUser(String ticket) {
+        Ticket redeemed = redeem(ticket);
+        if (redeemed == null || redeemed.userId() == null) {
+            return null;
+        }
+        Long userId = redeemed.userId();
+        if (banIndexService.isBanned(userId)) {
+            return null;
+        }
+        Subscriber subscriber = register(userId);
+        if (subscriber != null) {
+            // 在映射操作内加入，避免加入到 unregister 刚移除的空集合中
+            userSubscribers.compute(userId, (k, set) -> {
+                Set<Subscriber> subscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+                subscribers.add(subscriber);
+                return subscribers;
+            });
+        }
+        return subscriber == null ? null : subscriber.emitter;
+    }
+    
+    /**
+     * 管理员订阅，票据无效、已使用或已过期返回null
+     */
+    public SseEmitter subscribeAdmin(String ticket) {
+        Ticket redeemed = redeem(ticket);
+        if (redeemed == null || redeemed.userId() != null) {
+            return null;
+        }
+        Subscriber subscriber = register(null);
+        if (subscriber != null) {
+            adminSubscribers.add(subscriber);
+        }
+        return subscriber == null ? null : subscriber.emitter;
+    }
+    
+    /**
+     * 连接数是否已达上限
+     */
+    public boolean isFull() {
+        return connections.get() >= maxConnections;
+    }
+    
+    /**
+     * 果树结果
+     */
+    @EventListener
+    public void onTreeRipe(TreeRipeEvent event) {
+        publishToUser(event.userId(), "tree-ripe", "tree-ripe",
+                Map.of("trees", event.trees(), "time", event.ripeTime()), false);
+    }
+    
+    /**
+     * 余额变动（每个币种只推送最新余额，序号较旧的变动被丢弃）
+     */
+    public void notifyCurrencyChanged(Long userId, CurrencyType currency, long balance, long sequence) {
+        publishToUser(userId, "currency:" + currency.name(), new PendingEvent("currency-changed",
+                Map.of("currency", currency.column(), "balance", balance), false, sequence));
+    }
+    
+    /**
+     * 用户在线状态变化
+     */
+    public void notifyOnline(Long userId, boolean online) {
+        publishToAdmins("online:" + userId, "user-online", Map.of("userId", userId, "online", online));
+    }
+    
+    /**
+     * 用户被封禁：通知玩家后关闭其连接，并通知管理员
+     */
+    public void notifyBanned(Long userId, String reason) {
+        publishToUser(userId, "banned", "banned", Map.of("reason", reason == null ? "" : reason), true);
+        publishToAdmins("ban:" + userId, "user-ban", Map.of("userId", userId, "banned", true));
+    }
+    
+    /**
+     * 用户被解封
+     */
+    public void notifyUnbanned(Long userId) {
+        publishToAdmins("ban:" + userId, "user-ban", Map.of("userId", userId, "banned", false));
+    }
+    
+    /**
+     * 用户被删除：关闭其连接并通知管理员
+     */
+    public void notifyDeleted(Long userId) {
+        publishToUser(userId, "deleted", "deleted", Map.of("userId", userId), true);
+        publishToAdmins("deleted:" + userId, "user-deleted", Map.of("userId", userId));
+    }
+    
+    /**
+     * 定时发送注释行，保持空闲连接并及时发现已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${push.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> ticket.expiresAt() < now);
+        for (Set<Subscriber> subscribers : userSubscribers.values()) {
+            for (Subscriber subscriber : subscribers) {
+                enqueue(subscriber, "ping", new PendingEvent(null, null, false));
+            }
+        }
+        for (Subscriber subscriber : adminSubscribers) {
+            enqueue(subscriber, "ping", new PendingEvent(null, null, false));
+        }
+    }
+    
+    /**
+     * 获取推送统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("connections", connections.get());
+        stats.put("maxConnections", maxConnections);
+        stats.put("subscribedUsers", userSubscribers.size());
+        stats.put("adminConnections", adminSubscribers.size());
+        stats.put("published", published.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("sent", sent.sum());
+        stats.put("overflows", overflows.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("slowSubscribers", slowSubscribers.sum());
+        return stats;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        slowDispatcher.shutdownNow();
+        for (Set<Subscriber> subscribers : userSubscribers.values()) {
+            subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        }
+        adminSubscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+    
+    private Subscriber register(Long userId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(timeoutMs));
+        subscriber.emitter.onCompletion(() -> unregister(subscriber));
+        subscriber.emitter.onTimeout(() -> unregister(subscriber));
+        subscriber.emitter.onError(e -> unregister(subscriber));
+        return subscriber;
+    }
+    
+    private void unregister(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connections.decrementAndGet();
+        if (subscriber.userId == null) {
+            adminSubscribers.remove(subscriber);
+        } else {
+            userSubscribers.computeIfPresent(subscriber.userId, (k, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+    
+    private String issueTicket(Long userId) {
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(userId, System.currentTimeMillis() + ticketTtlMs));
+        return ticket;
+    }
+    
+    /**
+     * 取出并作废票据，过期返回null
+     */
+    private Ticket redeem(String ticket) {
+        Ticket redeemed = ticket == null ? null : tickets.remove(ticket);
+        if (redeemed == null || redeemed.expiresAt() < System.currentTimeMillis()) {
+            return null;
+        }
+        return redeemed;
+    }
+    
+    private void publishToUser(Long userId, String key, String name, Object data, boolean closeAfter) {
+        publishToUser(userId, key, new PendingEvent(name, data, closeAfter));
+    }
+    
+    private void publishToUser(Long userId, String key, PendingEvent event) {
+        Set<Subscriber> subscribers = userSubscribers.get(userId);
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, key, event);
+        }
+        published.increment();
+    }
+    
+    private void publishToAdmins(String key, String name, Object data) {
+        if (adminSubscribers.isEmpty()) {
+            return;
+        }
+        PendingEvent event = new PendingEvent(name, data, false);
+        for (Subscriber subscriber : adminSubscribers) {
+            enqueue(subscriber, key, event);
+        }
+        published.increment();
+    }
+    
+    private void enqueue(Subscriber subscriber, String key, PendingEvent event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        synchronized (subscriber) {
+            if (event.sequence() > 0) {
+                Long last = subscriber.sequences.get(key);
+                if (last != null && last >= event.sequence()) {
+                    coalesced.increment();
+                    return;
+                }
+                subscriber.sequences.put(key, event.sequence());
+            }
+            if (subscriber.pending.put(key, event) != null) {
+                coalesced.increment();
+            } else if (subscriber.pending.size() > maxPendingPerSubscriber) {
+                // 积压过多（客户端过慢）时丢弃明细，通知客户端重新拉取全量数据
+                overflows.increment();
+                subscriber.pending.clear();
+                subscriber.pending.put("resync", new PendingEvent("resync", Map.of(), false));
+            }
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            if (subscriber.slow) {
+                slowDispatcher.execute(() -> drain(subscriber, true));
+            } else {
+                dispatcher.execute(() -> drain(subscriber, false));
+            }
+        }
+    }
+    
+    /**
+     * 发送待发送表直到为空；在订阅者锁内确认为空后才清除调度标记，
+     * 之后的事件会重新提交任务，因此同一订阅者不会有两个任务交错发送
+     */
+    private void drain(Subscriber subscriber, boolean onSlowDispatcher) {
+        while (true) {
+            if (subscriber.slow && !onSlowDispatcher) {
+                // 发送中变慢，剩余事件转交慢速线程池（调度标记保持置位）
+                slowDispatcher.execute(() -> drain(subscriber, true));
+                return;
+            }
+            Map<String, PendingEvent> events;
+            synchronized (subscriber) {
+                if (subscriber.pending.isEmpty()) {
+                    subscriber.scheduled.set(false);
+                    return;
+                }
+                events = subscriber.pending;
+                subscriber.pending = new LinkedHashMap<>();
+            }
+            if (!send(subscriber, events)) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 发送一批事件，连接已关闭时返回false（调度标记保持置位，之后不再提交任务）
+     */
+    private boolean send(Subscriber subscriber, Map<String, PendingEvent> events) {
+        try {
+            for (PendingEvent event : events.values()) {
+                long start = System.nanoTime();
+                if (event.name() == null) {
+                    subscriber.emitter.send(SseEmitter.event().comment("ping"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+                    sent.increment();
+                }
+                if (!subscriber.slow && System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(slowSendMs)) {
+                    subscriber.slow = true;
+                    slowSubscribers.increment();
+                }
+                if (event.closeAfter()) {
+                    subscriber.emitter.complete();
+                    unregister(subscriber);
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // 连接已断开或写入超时
+            subscriber.emitter.completeWithError(e);
+            unregister(subscriber);
+            return false;
+        }
+    }
+    
+    private static ExecutorService newDispatcher(int threads, String name) {
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,289 @@
+package com.lby.moyuultimate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * SQL执行追踪：按语句形状（字面量替换为?、IN列表合并）统计执行次数、总耗时与耗时分布，
+ * 超过慢查询阈值的语句按比例采样，保留最近若干条（含调用位置）
+ * 每次执行只记录两次时间戳和几次原子累加，不输出日志；形状数量有上限，超出的归入同一个桶
+ */
+@Service
+public class QueryTraceService {
+    
+    /** 超出形状上限后的统计桶 */
+    public static final String OTHER_SHAPE = "(其他)";
+    
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_SQL_LENGTH = 2048;
+    private static final String APP_PACKAGE = "com.lby.moyuultimate.";
+    private static final String CONFIG_PACKAGE = "com.lby.moyuultimate.config.";
+    
+    @Value("${query-tracing.enabled:true}")
+    private boolean enabled = true;
+    
+    @Value("${query-tracing.max-shapes:500}")
+    private int maxShapes = 500;
+    
+    @Value("${query-tracing.slow-threshold-ms:100}")
+    private long slowThresholdMs = 100;
+    
+    @Value("${query-tracing.slow-sample-rate:0.1}")
+    private double slowSampleRate = 0.1;
+    
+    @Value("${query-tracing.slow-sample-capacity:100}")
+    private int slowSampleCapacity = 100;
+    
+    /** 语句形状 -> 统计 */
+    private final Map<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    // 原始SQL -> 统计，避免每次执行都做正则归一化；Hibernate生成的SQL已参数化，数量有限
+    private final Map<String, ShapeStats> rawSqlCache = new ConcurrentHashMap<>();
+    
+    private volatile AtomicReferenceArray<SlowSample> slowSamples;
+    private final AtomicLong slowSampleCursor = new AtomicLong();
+    private final LongAdder slowStatements = new LongAdder();
+    
+    public record SlowSample(String shape, String sql, double millis, boolean failed, String caller,
+                             String thread, Instant at) {}
+    
+    /**
+     * 单个语句形状的统计
+     * 耗时分布以微秒为单位，每个2的幂区间再分4档，相对误差不超过25%
+     */
+    static final class ShapeStats {
+        private static final int SUB_BUCKETS = 4;
+        private static final int BUCKETS = 160;
+    
+        final String shape;
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+    
+        ShapeStats(String shape) {
+            this.shape = shape;
+        }
+    
+        void record(long nanos, boolean failed) {
+            buckets.incrementAndGet(bucketOf(nanos / 1000));
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (failed) {
+                errors.increment();
+            }
+        }
+    
+        static int bucketOf(long micros) {
+            if (micros < SUB_BUCKETS) {
+                return (int) Math.max(micros, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int sub = (int) (micros >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+            return Math.min((exponent - 1) * SUB_BUCKETS + sub, BUCKETS - 1);
+        }
+    
+        /** 区间上界（微秒，不含） */
+        static long upperBoundOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket + 1;
+            }
+            int exponent = bucket / SUB_BUCKETS + 1;
+            int sub = bucket % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + sub + 1) << (exponent - 2);
+        }
+    
+        Map<String, Object> snapshot() {
+            long[] counts = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                count += counts[i];
+            }
+            long total = totalNanos.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("shape", shape);
+            stats.put("count", count);
+            stats.put("errors", errors.sum());
+            stats.put("totalMs", total / 1e6);
+            stats.put("avgMs", count == 0 ? 0 : total / 1e6 / count);
+            stats.put("p50Ms", percentile(counts, count, 0.50));
+            stats.put("p90Ms", percentile(counts, count, 0.90));
+            stats.put("p99Ms", percentile(counts, count, 0.99));
+            stats.put("maxMs", maxNanos.get() / 1e6);
+            return stats;
+        }
+    
+        private static double percentile(long[] counts, long count, double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * count);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBoundOf(i) / 1000.0;
+                }
+            }
+            return upperBoundOf(counts.length - 1) / 1000.0;
+        }
+    }
+    
+    /**
+     * 记录一次语句执行
+     */
+    public void record(String sql, long nanos, boolean failed) {
+        ShapeStats stats = statsFor(sql);
+        stats.record(nanos, failed);
+        if (nanos >= slowThresholdMs * 1_000_000) {
+            slowStatements.increment();
+            if (slowSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+                sampleSlow(stats.shape, sql, nanos, failed);
+            }
+        }
+    }
+    
+    /**
+     * 获取耗时排名靠前的语句形状
+     *
+     * @param sortBy total（总耗时）、count、avg、p99、max、errors
+     */
+    public Map<String, Object> getTopQueries(int limit, String sortBy) {
+        Comparator<Map<String, Object>> order = switch (sortBy) {
+            case "count" -> Comparator.comparing(stats -> (Long) stats.get("count"));
+            case "errors" -> Comparator.comparing(stats -> (Long) stats.get("errors"));
+            case "avg" -> Comparator.comparing(stats -> (Double) stats.get("avgMs"));
+            case "p99" -> Comparator.comparing(stats -> (Double) stats.get("p99Ms"));
+            case "max" -> Comparator.comparing(stats -> (Double) stats.get("maxMs"));
+            default -> Comparator.comparing(stats -> (Double) stats.get("totalMs"));
+        };
+        List<Map<String, Object>> top = shapes.values().stream()
+                .map(ShapeStats::snapshot)
+                .sorted(order.reversed())
+                .limit(Math.max(limit, 0))
+                .toList();
+    
+        Map<String, Object> response = new HashMap<>();
+        response.put("enabled", enabled);
+        response.put("shapes", shapes.size());
+        response.put("maxShapes", maxShapes);
+        response.put("slowThresholdMs", slowThresholdMs);
+        response.put("slowSampleRate", slowSampleRate);
+        response.put("slowStatements", slowStatements.sum());
+        response.put("top", top);
+        response.put("slowSamples", getSlowSamples());
+        return response;
+    }
+    
+    /**
+     * 最近采样的慢查询（新的在前）
+     */
+    public List<SlowSample> getSlowSamples() {
+        AtomicReferenceArray<SlowSample> samples = slowSamples;
+        List<SlowSample> result = new ArrayList<>();
+        if (samples == null) {
+            return result;
+        }
+        long end = slowSampleCursor.get();
+        for (long i = end - 1; i >= Math.max(0, end - samples.length()); i--) {
+            SlowSample sample = samples.get((int) (i % samples.length()));
+            if (sample != null) {
+                result.add(sample);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 清空统计（对比优化前后时使用）
+     */
+    public void reset() {
+        shapes.clear();
+        rawSqlCache.clear();
+        slowStatements.reset();
+        slowSamples = null;
+        slowSampleCursor.set(0);
+    }
+    
+    /**
+     * 语句形状：字面量替换为?，IN列表合并为一个?，空白压缩
+     */
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (?...)");
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return truncate(shape);
+    }
+    
+    private ShapeStats statsFor(String sql) {
+        ShapeStats stats = rawSqlCache.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String shape = shapeOf(sql);
+        stats = shapes.get(shape);
+        if (stats == null) {
+            stats = shapes.size() < maxShapes
+                    ? shapes.computeIfAbsent(shape, ShapeStats::new)
+                    : shapes.computeIfAbsent(OTHER_SHAPE, ShapeStats::new);
+        }
+        // 拼接了字面量的SQL可能无限多，缓存同样受上限约束
+        if (rawSqlCache.size() < maxShapes * 4) {
+            rawSqlCache.putIfAbsent(sql, stats);
+        }
+        return stats;
+    }
+    
+    private void sampleSlow(String shape, String sql, long nanos, boolean failed) {
+        AtomicReferenceArray<SlowSample> samples = slowSamples;
+        if (samples == null) {
+            synchronized (this) {
+                if (slowSamples == null) {
+                    slowSamples = new AtomicReferenceArray<>(Math.max(slowSampleCapacity, 1));
+                }
+                samples = slowSamples;
+            }
+        }
+        SlowSample sample = new SlowSample(shape, truncate(sql), nanos / 1e6, failed, callerOf(),
+                Thread.currentThread().getName(), Instant.now());
+        long index = slowSampleCursor.getAndIncrement();
+        samples.set((int) (index % samples.length()), sample);
+    }
+    
+    /**
+     * 触发该语句的业务代码位置（跳过追踪本身、数据源包装和Spring生成的代理类）
+     */
+    private static String callerOf() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APP_PACKAGE)
+                        && !frame.getClassName().startsWith(CONFIG_PACKAGE)
+                        && !frame.getClassName().contains("$$")
+                        && !frame.getClassName().equals(QueryTraceService.class.getName()))
+                .findFirst()
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse(null));
+    }
+    
+    private static String truncate(String sql) {
+        return sql.length() <= MAX_SQL_LENGTH ? sql : sql.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+}
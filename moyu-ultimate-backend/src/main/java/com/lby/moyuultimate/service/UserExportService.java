@@ -0,0 +1,149 @@
+package com.lby.moyuultimate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lby.moyuultimate.entity.User;
+import com.lby.moyuultimate.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class UserExportService {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private BanIndexService banIndexService;
+    
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // 每写出多少行刷新一次输出流
+    private static final int FLUSH_INTERVAL = 1000;
+    
+    private static final String CSV_HEADER = "id,username,displayName,email,role,isOnline,isBanned,lastLoginTime,createdAt";
+    
+    /**
+     * 验证导出请求的管理员token
+     */
+    public boolean isExportAllowed(String token) {
+        return jwtService.isAdminTokenValid(token);
+    }
+    
+    /**
+     * 以NDJSON格式流式导出全部用户
+     * 逐行从数据库游标读取并直接写入输出流，写出后立即从持久化上下文中移除，内存占用与用户总数无关
+     */
+    @Transactional(readOnly = true)
+    public void exportNdjson(OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        // 每行一个JSON对象，由换行分隔
+        generator.setRootValueSeparator(null);
+        try (Stream<User> stream = userRepository.streamAllOrderById()) {
+            Iterator<User> it = stream.iterator();
+            int rows = 0;
+            while (it.hasNext()) {
+                User user = it.next();
+                generator.writeStartObject();
+                generator.writeNumberField("id", user.getId());
+                generator.writeStringField("username", user.getUsername());
+                generator.writeStringField("displayName", user.getDisplayName());
+                generator.writeStringField("email", user.getEmail());
+                generator.writeStringField("role", user.getRole() == null ? null : user.getRole().name());
+                generator.writeBooleanField("isOnline", Boolean.TRUE.equals(user.getIsOnline()));
+                generator.writeBooleanField("isBanned", banIndexService.isBanned(user.getId()));
+                generator.writeStringField("lastLoginTime", format(user.getLastLoginTime()));
+                generator.writeStringField("createdAt", format(user.getCreatedAt()));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                
+                entityManager.detach(user);
+                if (++rows % FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        generator.flush();
+    }
+    
+    /**
+     * 以CSV格式流式导出全部用户
+     */
+    @Transactional(readOnly = true)
+    public void exportCsv(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        try (Stream<User> stream = userRepository.streamAllOrderById()) {
+            Iterator<User> it = stream.iterator();
+            int rows = 0;
+            while (it.hasNext()) {
+                User user = it.next();
+                writer.write(String.valueOf(user.getId()));
+                writer.write(',');
+                writeCsvField(writer, user.getUsername());
+                writer.write(',');
+                writeCsvField(writer, user.getDisplayName());
+                writer.write(',');
+                writeCsvField(writer, user.getEmail());
+                writer.write(',');
+                writeCsvField(writer, user.getRole() == null ? null : user.getRole().name());
+                writer.write(',');
+                writer.write(String.valueOf(Boolean.TRUE.equals(user.getIsOnline())));
+                writer.write(',');
+                writer.write(String.valueOf(banIndexService.isBanned(user.getId())));
+                writer.write(',');
+                writeCsvField(writer, format(user.getLastLoginTime()));
+                writer.write(',');
+                writeCsvField(writer, format(user.getCreatedAt()));
+                writer.write('\n');
+                
+                entityManager.detach(user);
+                if (++rows % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+    }
+    
+    /**
+     * 写出CSV字段，含逗号、引号或换行时加引号转义
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+    
+    private static String format(LocalDateTime time) {
+        return time == null ? null : time.toString();
+    }
+}
@@ -0,0 +1,109 @@
+package com.lby.moyuultimate.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitedDataSourceTests {
+
+    @Test
+    void permitIsReturnedOnceWhenConnectionIsClosed() throws Exception {
+        Connection raw = mock(Connection.class);
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenReturn(raw);
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 0, 10);
+
+        Connection connection = dataSource.getConnection();
+        assertEquals(1, dataSource.getStats().get("inUse"));
+        assertSame(connection, connection.unwrap(Connection.class));
+
+        connection.close();
+        connection.close();
+        verify(raw, times(2)).close();
+        assertEquals(0, dataSource.getStats().get("inUse"));
+
+        // 重复close不会多归还许可
+        dataSource.getConnection();
+        assertRejectedOnOtherThread(dataSource);
+    }
+
+    @Test
+    void waitersBeyondLimitAreRejectedAndSlowWaitersTimeOut() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 1, 200);
+
+        Connection held = dataSource.getConnection();
+        Thread waiter = Thread.ofVirtual().start(() ->
+                assertThrows(SQLTransientConnectionException.class, dataSource::getConnection));
+        while (dataSource.getStats().get("waiting").equals(0)) {
+            Thread.onSpinWait();
+        }
+        assertRejectedOnOtherThread(dataSource);
+        waiter.join();
+
+        assertEquals(1L, dataSource.getStats().get("rejected"));
+        assertEquals(1L, dataSource.getStats().get("timedOut"));
+        held.close();
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    void failedAcquisitionFromTargetReturnsPermit() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 0, 10);
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(0, dataSource.getStats().get("inUse"));
+    }
+
+    @Test
+    void nestedAcquisitionOnSameThreadDoesNotNeedAPermit() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(target, 1, 0, 10);
+
+        // 外层事务占住唯一的许可，主键号段分配在同一线程上另取连接
+        Connection outer = dataSource.getConnection();
+        Connection inner = dataSource.getConnection();
+        assertEquals(1, dataSource.getStats().get("inUse"));
+        assertEquals(1L, dataSource.getStats().get("nested"));
+        inner.close();
+        inner.close();
+
+        // 其他线程仍受限制
+        assertRejectedOnOtherThread(dataSource);
+
+        outer.close();
+        assertEquals(0, dataSource.getStats().get("inUse"));
+        dataSource.getConnection().close();
+    }
+
+    // 同一线程再取连接视为嵌套获取，限制要在其他线程上验证
+    private static void assertRejectedOnOtherThread(ConcurrencyLimitedDataSource dataSource) throws Exception {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread other = Thread.ofVirtual().start(() -> {
+            try {
+                assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        });
+        other.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+}
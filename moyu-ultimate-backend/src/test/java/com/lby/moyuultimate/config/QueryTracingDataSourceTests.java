@@ -0,0 +1,73 @@
+package com.lby.moyuultimate.config;
+
+import com.lby.moyuultimate.service.QueryTraceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryTracingDataSourceTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void statementsAreGroupedByShape() {
+        QueryTraceService tracer = new QueryTraceService();
+        ReflectionTestUtils.setField(tracer, "slowThresholdMs", 0L);
+        ReflectionTestUtils.setField(tracer, "slowSampleRate", 1.0);
+        ReflectionTestUtils.setField(tracer, "slowSampleCapacity", 2);
+        JdbcTemplate jdbc = new JdbcTemplate(new QueryTracingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:tracing;DB_CLOSE_DELAY=-1"), tracer));
+
+        jdbc.execute("CREATE TABLE t (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+        for (int i = 0; i < 10; i++) {
+            jdbc.update("INSERT INTO t VALUES (?, ?)", i, "n" + i);
+        }
+        jdbc.queryForList("SELECT name FROM t WHERE id IN (1, 2, 3)");
+        jdbc.queryForList("SELECT name FROM t WHERE id IN (4,5)");
+        jdbc.queryForList("SELECT name FROM t WHERE name = 'n1'");
+        jdbc.batchUpdate("UPDATE t SET name = 'x' WHERE id = 1", "UPDATE t SET name = 'y' WHERE id = 2");
+        assertThrows(Exception.class, () -> jdbc.update("INSERT INTO t VALUES (?, ?)", 1, "dup"));
+
+        Map<String, Object> stats = tracer.getTopQueries(10, "count");
+        List<Map<String, Object>> top = (List<Map<String, Object>>) stats.get("top");
+        Map<String, Object> insert = top.get(0);
+        assertEquals("INSERT INTO t VALUES (?, ?)", insert.get("shape"));
+        assertEquals(11L, insert.get("count"));
+        assertEquals(1L, insert.get("errors"));
+        assertTrue((Double) insert.get("p50Ms") <= (Double) insert.get("p99Ms"));
+
+        assertTrue(top.stream().anyMatch(shape -> shape.get("shape").equals("SELECT name FROM t WHERE id in (?...)")
+                && shape.get("count").equals(2L)));
+        assertTrue(top.stream().anyMatch(shape -> shape.get("shape").equals("SELECT name FROM t WHERE name = ?")));
+        assertTrue(top.stream().anyMatch(shape -> shape.get("shape").equals("batch: UPDATE t SET name = ? WHERE id = ?")));
+
+        // 阈值为0时每条都是慢查询，只保留最近2条
+        List<QueryTraceService.SlowSample> samples = tracer.getSlowSamples();
+        assertEquals(2, samples.size());
+        assertTrue(samples.get(0).failed());
+        assertEquals(16L, stats.get("slowStatements"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shapesBeyondLimitShareOneBucket() {
+        QueryTraceService tracer = new QueryTraceService();
+        ReflectionTestUtils.setField(tracer, "maxShapes", 2);
+        tracer.record("SELECT 1 FROM a", 1_000, false);
+        tracer.record("SELECT 1 FROM b", 1_000, false);
+        tracer.record("SELECT 1 FROM c", 1_000, false);
+        tracer.record("SELECT 1 FROM d", 1_000, false);
+
+        List<Map<String, Object>> top = (List<Map<String, Object>>) tracer.getTopQueries(10, "total").get("top");
+        assertEquals(3, top.size());
+        assertTrue(top.stream().anyMatch(shape -> shape.get("shape").equals(QueryTraceService.OTHER_SHAPE)
+                && shape.get("count").equals(2L)));
+    }
+}
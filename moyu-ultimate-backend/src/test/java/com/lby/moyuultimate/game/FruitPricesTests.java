@@ -0,0 +1,53 @@
+package com.lby.moyuultimate.game;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FruitPricesTests {
+
+    @Test
+    void totalsAllLevels() {
+        long[] counts = new long[GardenRules.MAX_FRUIT_LEVEL + 1];
+        counts[0] = 3;
+        counts[15] = 2;
+
+        assertEquals(3 * 100L + 2 * 13_687_907L, FruitPrices.totalValue(counts));
+    }
+
+    @Test
+    void rejectsOverflow() {
+        long[] counts = new long[GardenRules.MAX_FRUIT_LEVEL + 1];
+        counts[15] = Long.MAX_VALUE / 13_687_907L + 1;
+        assertThrows(ArithmeticException.class, () -> FruitPrices.totalValue(counts));
+
+        long[] sum = new long[GardenRules.MAX_FRUIT_LEVEL + 1];
+        sum[14] = Long.MAX_VALUE / 6_221_776L;
+        sum[15] = Long.MAX_VALUE / 13_687_907L;
+        assertThrows(ArithmeticException.class, () -> FruitPrices.totalValue(sum));
+    }
+
+    @Test
+    void removesFruitsAllOrNothing() {
+        Garden garden = new Garden(1);
+        garden.backpack[ItemCategory.FRUIT.slot(2)] = 5;
+        garden.backpack[ItemCategory.FRUIT.slot(7)] = 1;
+        long[] counts = new long[GardenRules.MAX_FRUIT_LEVEL + 1];
+        counts[2] = 5;
+        counts[7] = 2;
+
+        long[] before = garden.backpack.clone();
+        assertFalse(GardenEngine.removeFruits(garden, counts));
+        assertArrayEquals(before, garden.backpack);
+
+        counts[7] = 1;
+        assertTrue(GardenEngine.removeFruits(garden, counts));
+        assertEquals(0, garden.backpack[ItemCategory.FRUIT.slot(2)]);
+        assertEquals(0, garden.backpack[ItemCategory.FRUIT.slot(7)]);
+        assertTrue(garden.isDirty());
+    }
+}
@@ -0,0 +1,123 @@
+package com.lby.moyuultimate.game;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 家园存档基准测试：二进制编码与JSON（与前端 grid/backpack 结构一致）的大小和编解码吞吐对比
+ *
+ * 运行方式：mvn test -Dtest=GardenCodecBenchmarkTests -Dbenchmark=true [-Dbenchmark.gardens=100000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GardenCodecBenchmarkTests {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void compareBinaryAndJson() throws Exception {
+        int count = Integer.getInteger("benchmark.gardens", 100000);
+        Random random = new Random(42);
+        Garden[] gardens = new Garden[count];
+        for (int i = 0; i < count; i++) {
+            gardens[i] = GardenCodecTests.randomGarden(random, i);
+        }
+
+        // 预热
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < Math.min(count, 20000); i++) {
+                GardenCodec.decode(i, GardenCodec.encode(gardens[i], NOW));
+                objectMapper.readTree(objectMapper.writeValueAsBytes(toJson(gardens[i])));
+            }
+        }
+
+        byte[][] binary = new byte[count][];
+        long start = System.nanoTime();
+        long binaryBytes = 0;
+        for (int i = 0; i < count; i++) {
+            binary[i] = GardenCodec.encode(gardens[i], NOW);
+            binaryBytes += binary[i].length;
+        }
+        long binaryEncodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            GardenCodec.decode(i, binary[i]);
+        }
+        long binaryDecodeNanos = System.nanoTime() - start;
+
+        byte[][] json = new byte[count][];
+        start = System.nanoTime();
+        long jsonBytes = 0;
+        for (int i = 0; i < count; i++) {
+            json[i] = objectMapper.writeValueAsBytes(toJson(gardens[i]));
+            jsonBytes += json[i].length;
+        }
+        long jsonEncodeNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            JsonNode node = objectMapper.readTree(json[i]);
+            node.get("grid").size();
+        }
+        long jsonDecodeNanos = System.nanoTime() - start;
+
+        System.out.printf("%-8s %14s %16s %16s%n", "format", "avg bytes", "encode/s", "decode/s");
+        print("binary", binaryBytes, binaryEncodeNanos, binaryDecodeNanos, count);
+        print("json", jsonBytes, jsonEncodeNanos, jsonDecodeNanos, count);
+    }
+
+    private static void print(String format, long bytes, long encodeNanos, long decodeNanos, int count) {
+        System.out.printf("%-8s %14.1f %16.0f %16.0f%n", format, (double) bytes / count,
+                count / (encodeNanos / 1e9), count / (decodeNanos / 1e9));
+    }
+
+    /**
+     * 与前端 garden.ts 保存的结构一致：grid 为 8×15 的对象数组，空格为null
+     */
+    private static Map<String, Object> toJson(Garden garden) {
+        List<List<Map<String, Object>>> grid = new ArrayList<>();
+        for (int x = 0; x < GardenRules.ROWS; x++) {
+            List<Map<String, Object>> row = new ArrayList<>();
+            for (int y = 0; y < GardenRules.COLS; y++) {
+                int cell = garden.cellAt(x, y);
+                int kind = GardenCell.kind(cell);
+                if (kind == GardenCell.EMPTY) {
+                    row.add(null);
+                    continue;
+                }
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("type", GardenCell.kindName(kind));
+                item.put("level", GardenCell.level(cell));
+                if (kind == GardenCell.TREE) {
+                    int level = GardenCell.level(cell);
+                    item.put("fruitsRemaining", GardenCell.fruits(cell));
+                    item.put("maxFruits", GardenRules.maxFruits(level));
+                    long growEnd = garden.growEndAt(x, y);
+                    item.put("isGrowing", growEnd != 0);
+                    item.put("growStartTime", growEnd == 0 ? 0 : growEnd - GardenRules.regenMillis(level));
+                    item.put("growDuration", GardenRules.regenMillis(level));
+                }
+                row.add(item);
+            }
+            grid.add(row);
+        }
+        Map<String, Long> backpack = new LinkedHashMap<>();
+        for (int slot = 0; slot < ItemCategory.BACKPACK_SLOTS; slot++) {
+            if (garden.backpackCount(slot) != 0) {
+                backpack.put(ItemCategory.keyOfSlot(slot), garden.backpackCount(slot));
+            }
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("grid", grid);
+        root.put("backpack", backpack);
+        return root;
+    }
+}
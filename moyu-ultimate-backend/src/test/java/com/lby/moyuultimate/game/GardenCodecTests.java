@@ -0,0 +1,80 @@
+package com.lby.moyuultimate.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GardenCodecTests {
+
+    private static final long NOW = 1_760_000_000_000L;
+
+    @Test
+    void roundTripsRandomGardens() {
+        Random random = new Random(7);
+        for (int n = 0; n < 1000; n++) {
+            Garden garden = randomGarden(random, n);
+            Garden decoded = GardenCodec.decode(garden.getOwnerId(), GardenCodec.encode(garden, NOW));
+
+            assertArrayEquals(garden.cells, decoded.cells);
+            assertArrayEquals(garden.growEndMillis, decoded.growEndMillis);
+            assertArrayEquals(garden.backpack, decoded.backpack);
+            assertEquals(garden.nextRipeMillis, decoded.nextRipeMillis);
+            assertTrue(!decoded.isDirty());
+        }
+    }
+
+    @Test
+    void emptyGardenIsHeaderPlusCells() {
+        byte[] data = GardenCodec.encode(new Garden(1), NOW);
+
+        assertEquals(1 + Long.BYTES + GardenRules.CELLS + 1, data.length);
+    }
+
+    @Test
+    void rejectsUnknownVersionAndTruncatedData() {
+        byte[] data = GardenCodec.encode(randomGarden(new Random(1), 1), NOW);
+
+        byte[] unknownVersion = data.clone();
+        unknownVersion[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> GardenCodec.decode(1, unknownVersion));
+        assertThrows(IllegalArgumentException.class, () -> GardenCodec.decode(1, Arrays.copyOf(data, data.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> GardenCodec.decode(1, Arrays.copyOf(data, data.length + 1)));
+    }
+
+    /**
+     * 随机生成合法的家园，包含结果中（已过期和未过期）的果树
+     */
+    static Garden randomGarden(Random random, long ownerId) {
+        Garden garden = new Garden(ownerId);
+        for (int i = 0; i < GardenRules.CELLS; i++) {
+            int level = random.nextInt(GardenRules.MAX_TREE_LEVEL + 1);
+            switch (random.nextInt(4)) {
+                case 1 -> garden.cells[i] = GardenCell.seed();
+                case 2 -> {
+                    boolean growing = random.nextBoolean();
+                    garden.cells[i] = GardenCell.tree(level, growing ? 0 : random.nextInt(GardenRules.maxFruits(level) + 1));
+                    if (growing) {
+                        garden.growEndMillis[i] = NOW + random.nextLong(-3_600_000, GardenRules.regenMillis(level));
+                        if (garden.nextRipeMillis == 0 || garden.growEndMillis[i] < garden.nextRipeMillis) {
+                            garden.nextRipeMillis = garden.growEndMillis[i];
+                        }
+                    }
+                }
+                case 3 -> garden.cells[i] = GardenCell.fruit(level);
+                default -> { }
+            }
+        }
+        for (int slot = 0; slot < ItemCategory.BACKPACK_SLOTS; slot++) {
+            if (random.nextInt(3) == 0) {
+                garden.backpack[slot] = random.nextInt(4) == 0 ? random.nextLong(1, Long.MAX_VALUE) : random.nextInt(100);
+            }
+        }
+        return garden;
+    }
+}
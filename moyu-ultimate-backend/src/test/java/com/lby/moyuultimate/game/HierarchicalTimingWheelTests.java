@@ -0,0 +1,68 @@
+package com.lby.moyuultimate.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTests {
+    
+    @Test
+    void firesEachTimerOnItsTickAcrossAllLevels() {
+        long start = 1_700_000_000_000L;
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1000, start);
+        Random random = new Random(42);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long key = 0; key < 5000; key++) {
+            // 覆盖第0层到第3层，以及超出最高层范围的任务
+            long delay = key < 10 ? 300L * 24 * 3600 * 1000 : (long) Math.pow(10, random.nextInt(8)) * random.nextInt(1000);
+            deadlines.put(key, start + delay);
+            wheel.schedule(key, start + delay);
+        }
+        
+        Map<Long, Long> firedAt = new HashMap<>();
+        long now = start;
+        long end = start + 310L * 24 * 3600 * 1000;
+        while (now < end) {
+            // 每次推进的步长不同，模拟调度延迟
+            now += 1000L * (1 + random.nextInt(5000));
+            long tickTime = now;
+            wheel.advance(now, key -> firedAt.put(key, tickTime));
+        }
+        
+        assertEquals(deadlines.size(), firedAt.size());
+        assertEquals(0, wheel.size());
+        for (Map.Entry<Long, Long> entry : deadlines.entrySet()) {
+            long fired = firedAt.get(entry.getKey());
+            assertTrue(fired >= entry.getValue(), "fired early: " + entry.getKey());
+        }
+    }
+    
+    @Test
+    void firesInDeadlineOrderWhenAdvancedTickByTick() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(1000, 0);
+        long[] delays = {70_000, 5_000, 4_200_000, 63_000, 64_000, 1_000, 270_000_000};
+        for (int i = 0; i < delays.length; i++) {
+            wheel.schedule(i, delays[i]);
+        }
+        
+        List<Long> order = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        for (long now = 0; now <= 270_000_000; now += 1000) {
+            long tickTime = now;
+            wheel.advance(now, key -> {
+                order.add(key);
+                times.add(tickTime);
+            });
+        }
+        
+        assertEquals(List.of(5L, 1L, 3L, 4L, 0L, 2L, 6L), order);
+        assertEquals(List.of(1_000L, 5_000L, 63_000L, 64_000L, 70_000L, 4_200_000L, 270_000_000L), times);
+    }
+}
@@ -0,0 +1,65 @@
+package com.lby.moyuultimate.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * 排行榜基准测试：百万玩家下更新、查名次和取前N名的耗时
+ *
+ * 运行方式：mvn test -Dtest=RankedIndexBenchmarkTests -Dbenchmark=true [-Dbenchmark.players=1000000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RankedIndexBenchmarkTests {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void rankLookupsAtScale() {
+        int players = Integer.getInteger("benchmark.players", 1_000_000);
+        SplittableRandom random = new SplittableRandom(11);
+        RankedIndex index = new RankedIndex();
+
+        long start = System.nanoTime();
+        for (long id = 0; id < players; id++) {
+            index.put(id, random.nextLong(1_000_000_000L));
+        }
+        long loadNanos = System.nanoTime() - start;
+
+        long[] updateNanos = new long[SAMPLES];
+        long[] rankNanos = new long[SAMPLES];
+        long[] topNanos = new long[SAMPLES];
+        long checksum = 0;
+        for (int round = 0; round < 2; round++) {
+            // 第一轮为预热
+            for (int i = 0; i < SAMPLES; i++) {
+                long id = random.nextInt(players);
+                long t0 = System.nanoTime();
+                index.put(id, random.nextLong(1_000_000_000L));
+                long t1 = System.nanoTime();
+                checksum += index.rankOf(random.nextInt(players));
+                long t2 = System.nanoTime();
+                checksum += index.range(1, 10).size();
+                long t3 = System.nanoTime();
+                updateNanos[i] = t1 - t0;
+                rankNanos[i] = t2 - t1;
+                topNanos[i] = t3 - t2;
+            }
+        }
+
+        System.out.printf("players=%d load=%d ms checksum=%d%n", players, loadNanos / 1_000_000, checksum);
+        System.out.printf("%-8s %10s %10s %10s%n", "op", "p50 ns", "p99 ns", "p999 ns");
+        print("update", updateNanos);
+        print("rank", rankNanos);
+        print("top10", topNanos);
+    }
+
+    private static void print(String op, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-8s %10d %10d %10d%n", op,
+                sorted[sorted.length / 2], sorted[(int) (sorted.length * 0.99)], sorted[(int) (sorted.length * 0.999)]);
+    }
+}
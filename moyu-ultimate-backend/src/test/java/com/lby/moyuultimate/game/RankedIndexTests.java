@@ -0,0 +1,70 @@
+package com.lby.moyuultimate.game;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankedIndexTests {
+
+    private static final Comparator<long[]> ORDER = Comparator.<long[]>comparingLong(e -> -e[1]).thenComparingLong(e -> e[0]);
+
+    @Test
+    void matchesSortedReferenceUnderRandomUpdates() {
+        RankedIndex index = new RankedIndex();
+        TreeSet<long[]> reference = new TreeSet<>(ORDER);
+        Map<Long, Long> scores = new HashMap<>();
+        Random random = new Random(3);
+
+        for (int op = 0; op < 20_000; op++) {
+            long userId = random.nextInt(2000);
+            if (random.nextInt(10) == 0) {
+                Long old = scores.remove(userId);
+                if (old != null) {
+                    reference.remove(new long[] {userId, old});
+                }
+                index.remove(userId);
+            } else {
+                // 分数范围较小，保证有大量同分
+                long score = random.nextInt(500);
+                Long old = scores.put(userId, score);
+                if (old != null) {
+                    reference.remove(new long[] {userId, old});
+                }
+                reference.add(new long[] {userId, score});
+                index.put(userId, score);
+            }
+
+            if (op % 1000 == 0) {
+                assertMatches(reference, index);
+            }
+        }
+        assertMatches(reference, index);
+    }
+
+    private static void assertMatches(TreeSet<long[]> reference, RankedIndex index) {
+        assertEquals(reference.size(), index.size());
+        List<RankedIndex.Entry> all = index.range(1, reference.size());
+        assertEquals(reference.size(), all.size());
+        int rank = 1;
+        for (long[] expected : new ArrayList<>(reference)) {
+            RankedIndex.Entry entry = all.get(rank - 1);
+            assertEquals(expected[0], entry.userId());
+            assertEquals(expected[1], entry.score());
+            assertEquals(rank, entry.rank());
+            assertEquals(rank, index.rankOf(expected[0]));
+            rank++;
+        }
+        if (reference.size() > 10) {
+            List<RankedIndex.Entry> page = index.range(7, 3);
+            assertEquals(all.subList(6, 9), page);
+        }
+    }
+}
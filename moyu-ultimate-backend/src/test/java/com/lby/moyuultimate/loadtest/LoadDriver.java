@@ -0,0 +1,367 @@
+package com.lby.moyuultimate.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测驱动：每个虚拟用户一个虚拟线程，收到响应后立即发送下一个请求（闭环），
+ * 按权重混合注册、登录、token验证和管理员分页查询，预热阶段的请求不计入统计。
+ * 结束后输出吞吐与 p50/p99/p999 延迟，并把汇总写入JSON文件（键顺序固定，便于对比）
+ *
+ * 配合 loadtest profile 的预置数据使用（loaduser1~N，密码123456，每100个用户封禁1个；管理员 admin/admin123/moyu2025），
+ * 完整流程见 loadtest.sh。参数：
+ *   --base-url http://localhost:18080/api  --duration 60  --warmup 10  --concurrency 200
+ *   --mix register=5,login=20,validate=65,admin=10  --users 10000  --token-pool 100
+ *   --out target/loadtest  --label 说明文字
+ */
+public class LoadDriver {
+
+    enum Operation { REGISTER, LOGIN, VALIDATE, ADMIN_LIST }
+
+    private static final String PASSWORD = "123456";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final int PREPARE_CONCURRENCY = 4;
+
+    private final Map<String, String> options;
+    private final String baseUrl;
+    private final int users;
+    private final Operation[] schedule;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong registered = new AtomicLong();
+
+    private String adminToken;
+    private List<String> userTokens;
+
+    /**
+     * 单个虚拟用户的延迟记录（微秒），结束后合并
+     */
+    static final class Recorder {
+        final long[][] samples = new long[Operation.values().length][1024];
+        final int[] sizes = new int[Operation.values().length];
+        final long[] errors = new long[Operation.values().length];
+        final long[] rejected = new long[Operation.values().length];
+
+        void record(Operation operation, long micros) {
+            int i = operation.ordinal();
+            if (sizes[i] == samples[i].length) {
+                samples[i] = Arrays.copyOf(samples[i], sizes[i] * 2);
+            }
+            samples[i][sizes[i]++] = micros;
+        }
+    }
+
+    LoadDriver(Map<String, String> options) {
+        this.options = options;
+        this.baseUrl = option("base-url", "http://localhost:18080/api");
+        this.users = Integer.parseInt(option("users", "10000"));
+        this.schedule = schedule(option("mix", "register=5,login=20,validate=65,admin=10"));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        new LoadDriver(options).run();
+    }
+
+    void run() throws Exception {
+        int duration = Integer.parseInt(option("duration", "60"));
+        int warmup = Integer.parseInt(option("warmup", "10"));
+        int concurrency = Integer.parseInt(option("concurrency", "200"));
+        prepare(Integer.parseInt(option("token-pool", "100")));
+
+        System.out.printf("load test: %s, %d virtual users, warmup %ds, measure %ds%n", baseUrl, concurrency, warmup, duration);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(duration);
+        List<Recorder> recorders = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Recorder recorder = new Recorder();
+                recorders.add(recorder);
+                executor.execute(() -> runUser(recorder, measureFrom, end));
+            }
+        }
+        long measuredNanos = Math.min(System.nanoTime(), end) - measureFrom;
+
+        Map<String, Object> summary = summarize(recorders, measuredNanos, concurrency, warmup, duration);
+        Path file = writeSummary(summary);
+        System.out.println("summary: " + file);
+    }
+
+    private void runUser(Recorder recorder, long measureFrom, long end) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            long begin = System.nanoTime();
+            if (begin >= end) {
+                return;
+            }
+            int status;
+            try {
+                status = execute(operation, random);
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long finished = System.nanoTime();
+            if (begin < measureFrom || finished > end) {
+                continue;
+            }
+            if (status == 503 || status == 429) {
+                recorder.rejected[operation.ordinal()]++;
+            } else if (status != 200) {
+                recorder.errors[operation.ordinal()]++;
+            }
+            recorder.record(operation, (finished - begin) / 1000);
+        }
+    }
+
+    /**
+     * 执行一次操作；HTTP 200 但业务失败的响应按 500 计为错误
+     */
+    private int execute(Operation operation, ThreadLocalRandom random) throws IOException, InterruptedException {
+        HttpResponse<String> response = switch (operation) {
+            case REGISTER -> {
+                String username = "lt" + runId + "_" + registered.incrementAndGet();
+                yield post("/auth/register", Map.of("username", username, "password", PASSWORD,
+                        "confirmPassword", PASSWORD, "email", username + "@example.com"), null);
+            }
+            case LOGIN -> post("/auth/login", Map.of("username", "loaduser" + activeUserId(random),
+                    "password", PASSWORD), null);
+            case VALIDATE -> post("/auth/validate", null, userTokens.get(random.nextInt(userTokens.size())));
+            case ADMIN_LIST -> send(HttpRequest.newBuilder(URI.create(baseUrl + "/admin/users/page?limit=50&afterId="
+                    + random.nextInt(users))).GET(), adminToken);
+        };
+        if (response.statusCode() != 200) {
+            return response.statusCode();
+        }
+        JsonNode body = objectMapper.readTree(response.body());
+        boolean ok = operation == Operation.ADMIN_LIST
+                ? !body.has("error")
+                : body.path("success").asBoolean(false);
+        return ok ? 200 : 500;
+    }
+
+    /**
+     * 登录管理员，并预先登录一批用户作为token验证请求使用的token
+     * 登录受密码哈希线程池限制，这里限制并发并在繁忙（503）时重试
+     */
+    private void prepare(int tokenPool) throws Exception {
+        adminToken = login("/admin/login", Map.of("username", "admin", "password", "admin123", "secret", "moyu2025"));
+
+        List<String> tokens = new ArrayList<>();
+        Semaphore permits = new Semaphore(PREPARE_CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < tokenPool; i++) {
+                long userId = activeUserId(ThreadLocalRandom.current());
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return login("/auth/login", Map.of("username", "loaduser" + userId, "password", PASSWORD));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<String> future : futures) {
+                tokens.add(future.get());
+            }
+        }
+        userTokens = tokens;
+    }
+
+    private String login(String path, Map<String, String> body) throws IOException, InterruptedException {
+        HttpResponse<String> response = post(path, body, null);
+        for (int retry = 0; response.statusCode() == 503 && retry < 20; retry++) {
+            Thread.sleep(500);
+            response = post(path, body, null);
+        }
+        JsonNode json = objectMapper.readTree(response.body());
+        if (response.statusCode() != 200 || !json.path("success").asBoolean(false)) {
+            throw new IllegalStateException(path + " 登录失败（请确认后端以 loadtest profile 启动）：" + response.body());
+        }
+        return json.get("token").asText();
+    }
+
+    /**
+     * 未被预置封禁的用户ID（ID为100的倍数的用户被封禁）
+     */
+    private long activeUserId(ThreadLocalRandom random) {
+        long id;
+        do {
+            id = random.nextLong(1, users + 1);
+        } while (id % 100 == 0);
+        return id;
+    }
+
+    private HttpResponse<String> post(String path, Map<String, String> body, String token)
+            throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(publisher), token);
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder builder, String token)
+            throws IOException, InterruptedException {
+        builder.timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Map<String, Object> summarize(List<Recorder> recorders, long measuredNanos, int concurrency,
+                                          int warmup, int duration) {
+        double seconds = measuredNanos / 1e9;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        List<long[]> all = new ArrayList<>();
+        long totalErrors = 0;
+        long totalRejected = 0;
+        System.out.printf("%-12s %10s %10s %8s %8s %10s %10s %10s %10s%n",
+                "operation", "requests", "req/s", "errors", "rejected", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        for (Operation operation : Operation.values()) {
+            int i = operation.ordinal();
+            long[] merged = recorders.stream()
+                    .flatMapToLong(r -> Arrays.stream(r.samples[i], 0, r.sizes[i]))
+                    .toArray();
+            long errors = recorders.stream().mapToLong(r -> r.errors[i]).sum();
+            long rejected = recorders.stream().mapToLong(r -> r.rejected[i]).sum();
+            all.add(merged);
+            totalErrors += errors;
+            totalRejected += rejected;
+            Map<String, Object> stats = stats(merged, errors, rejected, seconds);
+            operations.put(operation.name().toLowerCase(), stats);
+            print(operation.name().toLowerCase(), stats);
+        }
+        long[] merged = all.stream().flatMapToLong(Arrays::stream).toArray();
+        Map<String, Object> total = stats(merged, totalErrors, totalRejected, seconds);
+        print("total", total);
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("baseUrl", baseUrl);
+        config.put("concurrency", concurrency);
+        config.put("warmupSeconds", warmup);
+        config.put("durationSeconds", duration);
+        config.put("mix", option("mix", "register=5,login=20,validate=65,admin=10"));
+        config.put("seededUsers", users);
+        config.put("tokenPool", userTokens.size());
+
+        Map<String, Object> environment = new LinkedHashMap<>();
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put("cpus", Runtime.getRuntime().availableProcessors());
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("label", option("label", ""));
+        summary.put("startedAt", LocalDateTime.now().minusNanos(measuredNanos).withNano(0).toString());
+        summary.put("config", config);
+        summary.put("environment", environment);
+        summary.put("total", total);
+        summary.put("operations", operations);
+        return summary;
+    }
+
+    private static Map<String, Object> stats(long[] micros, long errors, long rejected, double seconds) {
+        Arrays.sort(micros);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", micros.length);
+        stats.put("throughput", Math.round(micros.length / seconds * 10) / 10.0);
+        stats.put("errors", errors);
+        stats.put("rejected", rejected);
+        stats.put("p50Ms", percentile(micros, 0.50));
+        stats.put("p99Ms", percentile(micros, 0.99));
+        stats.put("p999Ms", percentile(micros, 0.999));
+        stats.put("maxMs", micros.length == 0 ? 0 : micros[micros.length - 1] / 1000.0);
+        return stats;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1000.0;
+    }
+
+    private static void print(String name, Map<String, Object> stats) {
+        System.out.printf("%-12s %10d %10.1f %8d %8d %10.2f %10.2f %10.2f %10.2f%n", name,
+                stats.get("requests"), stats.get("throughput"), stats.get("errors"), stats.get("rejected"),
+                stats.get("p50Ms"), stats.get("p99Ms"), stats.get("p999Ms"), stats.get("maxMs"));
+    }
+
+    private Path writeSummary(Map<String, Object> summary) throws IOException {
+        Path dir = Path.of(option("out", "target/loadtest"));
+        Files.createDirectories(dir);
+        Path file = dir.resolve("summary-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))
+                + ".json");
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), summary);
+        return file;
+    }
+
+    /**
+     * 按权重展开为操作表，随机取下标即按权重抽样
+     */
+    private static Operation[] schedule(String mix) {
+        Map<String, Operation> names = new HashMap<>();
+        names.put("register", Operation.REGISTER);
+        names.put("login", Operation.LOGIN);
+        names.put("validate", Operation.VALIDATE);
+        names.put("admin", Operation.ADMIN_LIST);
+        List<Operation> schedule = new ArrayList<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            Operation operation = names.get(pair[0]);
+            if (operation == null) {
+                throw new IllegalArgumentException("未知操作：" + pair[0] + "（可选 register、login、validate、admin）");
+            }
+            for (int i = 0; i < Integer.parseInt(pair[1]); i++) {
+                schedule.add(operation);
+            }
+        }
+        return schedule.toArray(new Operation[0]);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+}
@@ -0,0 +1,133 @@
+package com.lby.moyuultimate.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 封禁状态查询基准测试：逐个用户查询（N+1）与批量查询的对比
+ *
+ * 运行方式：mvn test -Dtest=BanStatusLookupBenchmarkTests -Dbenchmark=true [-Dbenchmark.sizes=10000,100000,1000000]
+ */
+@DataJpaTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class BanStatusLookupBenchmarkTests {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserBanRepository userBanRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void compareBanStatusLookup() {
+        String sizes = System.getProperty("benchmark.sizes", "10000,100000,1000000");
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        System.out.printf("%-10s %-12s %12s %12s%n", "users", "strategy", "queries", "millis");
+        for (String size : sizes.split(",")) {
+            int userCount = Integer.parseInt(size.trim());
+            List<Long> userIds = seed(userCount);
+
+            stats.clear();
+            long start = System.nanoTime();
+            int bannedN1 = 0;
+            for (Long userId : userIds) {
+                if (userBanRepository.findActiveBanByUserId(userId).isPresent()) {
+                    bannedN1++;
+                }
+                if (userId % BATCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+            report(userCount, "N+1", stats, start);
+
+            stats.clear();
+            start = System.nanoTime();
+            Set<Long> bannedIds = new HashSet<>();
+            for (int i = 0; i < userIds.size(); i += BATCH_SIZE) {
+                bannedIds.addAll(userBanRepository.findActiveBannedUserIdsIn(
+                        userIds.subList(i, Math.min(i + BATCH_SIZE, userIds.size()))));
+            }
+            report(userCount, "batched-IN", stats, start);
+
+            stats.clear();
+            start = System.nanoTime();
+            Set<Long> allBannedIds = new HashSet<>(userBanRepository.findAllActiveBannedUserIds());
+            report(userCount, "single", stats, start);
+
+            assertEquals(bannedN1, bannedIds.size());
+            assertEquals(bannedN1, allBannedIds.size());
+        }
+    }
+
+    private void report(int userCount, String strategy, Statistics stats, long startNanos) {
+        long millis = (System.nanoTime() - startNanos) / 1_000_000;
+        System.out.printf("%-10d %-12s %12d %12d%n", userCount, strategy, stats.getPrepareStatementCount(), millis);
+    }
+
+    /**
+     * 通过JDBC批量写入用户与封禁记录（1%的用户被封禁）
+     */
+    private List<Long> seed(int userCount) {
+        entityManager.clear();
+        jdbcTemplate.update("DELETE FROM user_bans");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM admins");
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        // 主键由号段分配，没有数据库自增，这里直接指定ID
+        long adminId = 1;
+        jdbcTemplate.update("INSERT INTO admins (id, username, password, admin_secret, is_active) VALUES (?, 'bench', 'x', 'x', true)", adminId);
+
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= userCount; i++) {
+            rows.add(new Object[]{(long) i, "user" + i, "x", false, "USER", now});
+            if (rows.size() == BATCH_SIZE || i == userCount) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO users (id, username, password, is_online, user_role, created_at) VALUES (?, ?, ?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT id FROM users ORDER BY id", Long.class);
+        List<Object[]> bans = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i += 100) {
+            bans.add(new Object[]{(long) bans.size() + 1, userIds.get(i), adminId, "PERMANENT", "benchmark", now, true});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO user_bans (id, user_id, admin_id, ban_type, ban_reason, ban_start_time, is_active) VALUES (?, ?, ?, ?, ?, ?, ?)", bans);
+        return userIds;
+    }
+}
@@ -0,0 +1,184 @@
+package com.lby.moyuultimate.repository;
+
+import com.lby.moyuultimate.config.IdSequenceInitializer;
+import com.lby.moyuultimate.entity.IdSequences;
+import com.lby.moyuultimate.entity.User;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批量注册基准测试：IDENTITY 主键（每行一条INSERT并取回自增ID）与号段主键（JDBC批量插入）的对比
+ * 两种实体字段相同，只有主键策略不同；使用 persistence 配置中的连接池与批量参数。
+ * 默认使用内存H2（进程内执行，没有网络往返，提升有限），指定 MySQL 测试库可看到真实差距
+ *
+ * 运行方式：mvn test -Dtest=BulkRegistrationBenchmarkTests -Dbenchmark=true [-Dbenchmark.users=20000]
+ *   [-Dbenchmark.url=jdbc:mysql://localhost:3306/moyu_bench?rewriteBatchedStatements=true
+ *    -Dbenchmark.driver=com.mysql.cj.jdbc.Driver -Dbenchmark.dialect=org.hibernate.dialect.MySQLDialect]
+ */
+@DataJpaTest(showSql = false)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(IdSequenceInitializer.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(properties = {
+        "spring.datasource.url=${benchmark.url:jdbc:h2:mem:bulk;DB_CLOSE_DELAY=-1}",
+        "spring.datasource.driver-class-name=${benchmark.driver:org.h2.Driver}",
+        "spring.jpa.properties.hibernate.dialect=${benchmark.dialect:org.hibernate.dialect.H2Dialect}",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.hikari.maximum-pool-size=20",
+        "spring.jpa.properties.hibernate.format_sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class BulkRegistrationBenchmarkTests {
+
+    private static final int CHUNK = 1000;
+    private static final int EXISTING_USERS = 1000;
+    private static final String PASSWORD_HASH = "{bcrypt}$2a$10$N.zmdr9k7uOCQb376NoUnuTJ8iAt6Z5EHsM8lE9lBOsl7iKTVEFDa";
+
+    @Entity
+    @Table(name = "bench_identity_users")
+    static class IdentityUser {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+
+        @Column(unique = true, nullable = false)
+        String username;
+
+        @Column(nullable = false)
+        String password;
+
+        @Column(unique = true)
+        String email;
+    }
+
+    @Entity
+    @Table(name = "bench_pooled_users")
+    static class PooledUser {
+        @Id
+        @GeneratedValue(strategy = GenerationType.TABLE, generator = "bench_user_id")
+        @TableGenerator(name = "bench_user_id", table = IdSequences.TABLE, pkColumnName = IdSequences.NAME_COLUMN,
+                valueColumnName = IdSequences.VALUE_COLUMN, pkColumnValue = "bench_pooled_users",
+                allocationSize = IdSequences.ALLOCATION_SIZE)
+        Long id;
+
+        @Column(unique = true, nullable = false)
+        String username;
+
+        @Column(nullable = false)
+        String password;
+
+        @Column(unique = true)
+        String email;
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IdSequenceInitializer idSequenceInitializer;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void pooledIdsBatchRegistrations() {
+        int users = Integer.getInteger("benchmark.users", 20_000);
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        System.out.printf("%-10s %10s %12s %12s %14s%n", "strategy", "users", "statements", "millis", "inserts/s");
+        for (int round = 0; round < 2; round++) {
+            // 第一轮为预热
+            String prefix = "r" + round + "-";
+            run("identity", users, stats, i -> {
+                IdentityUser user = new IdentityUser();
+                user.username = prefix + i;
+                user.password = PASSWORD_HASH;
+                user.email = prefix + i + "@example.com";
+                return user;
+            });
+            run("pooled", users, stats, i -> {
+                PooledUser user = new PooledUser();
+                user.username = prefix + i;
+                user.password = PASSWORD_HASH;
+                user.email = prefix + i + "@example.com";
+                return user;
+            });
+        }
+    }
+
+    @Test
+    void pooledIdsStartAfterExistingRows() {
+        // 模拟升级前由 AUTO_INCREMENT 写入的用户；对齐在独立事务中提交，
+        // 否则号段行被测试事务锁住，Hibernate 取号段使用的独立连接会等待超时
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.executeWithoutResult(status -> {
+            List<Object[]> rows = new ArrayList<>();
+            for (long id = 1; id <= EXISTING_USERS; id++) {
+                rows.add(new Object[]{id, "old" + id, PASSWORD_HASH});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO users (id, username, password) VALUES (?, ?, ?)", rows);
+            idSequenceInitializer.alignWithExistingIds();
+        });
+
+        for (int i = 0; i < 2 * IdSequences.ALLOCATION_SIZE; i++) {
+            User user = new User("new" + i, PASSWORD_HASH);
+            entityManager.persist(user);
+            assertTrue(user.getId() > EXISTING_USERS, "id " + user.getId());
+        }
+        entityManager.flush();
+    }
+
+    private void run(String strategy, int users, Statistics stats, IntFunction<Object> factory) {
+        entityManager.clear();
+        stats.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < users; i++) {
+            entityManager.persist(factory.apply(i));
+            if ((i + 1) % CHUNK == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-10s %10d %12d %12d %14.0f%n", strategy, users, stats.getPrepareStatementCount(),
+                nanos / 1_000_000, users / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,90 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.entity.BanType;
+import com.lby.moyuultimate.entity.User;
+import com.lby.moyuultimate.repository.UserBanRepository;
+import com.lby.moyuultimate.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 封禁校验基准测试：validateToken在封禁索引为空与含大量封禁时的延迟对比
+ * （封禁即时生效的正确性由 BanEnforcementTests 覆盖）
+ *
+ * 运行方式：mvn test -Dtest=BanEnforcementBenchmarkTests -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BanEnforcementBenchmarkTests {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+    private static final int BANNED_USERS = 100_000;
+
+    @Test
+    void validateLatencyWithBanCheck() {
+        User user = new User("player", "x");
+        user.setId(1L);
+
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.of(user));
+
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "moyu-ultimate-benchmark-secret-key-0123456789");
+        ReflectionTestUtils.setField(jwtService, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxSize", 10_000);
+        jwtService.init();
+        String token = jwtService.generateToken(user);
+
+        BanIndexService emptyIndex = banIndex(List.of());
+        List<Object[]> bans = new ArrayList<>(BANNED_USERS);
+        for (long i = 0; i < BANNED_USERS; i++) {
+            bans.add(new Object[]{i, 1000L + i, BanType.PERMANENT, null});
+        }
+        BanIndexService fullIndex = banIndex(bans);
+
+        AuthService authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(authService, "jwtService", jwtService);
+        ReflectionTestUtils.setField(authService, "presenceService", new PresenceService());
+
+        ReflectionTestUtils.setField(authService, "banIndexService", emptyIndex);
+        report("no bans", authService, token);
+        ReflectionTestUtils.setField(authService, "banIndexService", fullIndex);
+        report(BANNED_USERS + " bans", authService, token);
+    }
+
+    private static BanIndexService banIndex(List<Object[]> rows) {
+        UserBanRepository repository = mock(UserBanRepository.class, withSettings().stubOnly());
+        when(repository.findAllActiveBanStates()).thenReturn(rows);
+        BanIndexService index = new BanIndexService();
+        ReflectionTestUtils.setField(index, "userBanRepository", repository);
+        index.warmUp();
+        return index;
+    }
+
+    private static void report(String label, AuthService authService, String token) {
+        for (int i = 0; i < WARMUP; i++) {
+            authService.validateToken(token);
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            authService.validateToken(token);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        System.out.printf("validateToken [%s]: p50=%dns p99=%dns p999=%dns%n", label,
+                samples[ITERATIONS / 2], samples[ITERATIONS * 99 / 100], samples[ITERATIONS * 999 / 1000]);
+    }
+}
@@ -0,0 +1,91 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.dto.LoginRequest;
+import com.lby.moyuultimate.entity.BanType;
+import com.lby.moyuultimate.entity.User;
+import com.lby.moyuultimate.entity.UserBan;
+import com.lby.moyuultimate.repository.UserBanRepository;
+import com.lby.moyuultimate.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 封禁即时生效：封禁写入索引后，下一次登录和token验证即被拒绝，解封后恢复
+ */
+class BanEnforcementTests {
+
+    private final User user = new User("player", "{bcrypt}hash");
+    private BanIndexService banIndexService;
+    private AuthService authService;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        user.setId(1L);
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUsername("player")).thenReturn(Optional.of(user));
+
+        PasswordHashingService passwordHashingService = mock(PasswordHashingService.class);
+        when(passwordHashingService.matches(anyString(), anyString())).thenReturn(true);
+
+        UserBanRepository userBanRepository = mock(UserBanRepository.class);
+        when(userBanRepository.findAllActiveBanStates()).thenReturn(List.of());
+        banIndexService = new BanIndexService();
+        ReflectionTestUtils.setField(banIndexService, "userBanRepository", userBanRepository);
+        banIndexService.warmUp();
+
+        JwtService jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secret", "moyu-ultimate-test-secret-key-0123456789");
+        ReflectionTestUtils.setField(jwtService, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxSize", 100);
+        jwtService.init();
+        token = jwtService.generateToken(user);
+
+        authService = new AuthService();
+        ReflectionTestUtils.setField(authService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(authService, "passwordHashingService", passwordHashingService);
+        ReflectionTestUtils.setField(authService, "jwtService", jwtService);
+        ReflectionTestUtils.setField(authService, "banIndexService", banIndexService);
+        ReflectionTestUtils.setField(authService, "presenceService", mock(PresenceService.class));
+    }
+
+    @Test
+    void banRejectsNextLoginAndValidation() {
+        assertTrue(authService.login(new LoginRequest("player", "123456")).getSuccess());
+        assertTrue(authService.validateToken(token).getSuccess());
+
+        UserBan ban = new UserBan(user, null, BanType.PERMANENT, "test", null);
+        ban.setId(10L);
+        banIndexService.put(ban);
+
+        assertEquals("账号已被封禁", authService.login(new LoginRequest("player", "123456")).getMessage());
+        assertFalse(authService.validateToken(token).getSuccess());
+
+        banIndexService.remove(user.getId());
+        assertTrue(authService.login(new LoginRequest("player", "123456")).getSuccess());
+        assertTrue(authService.validateToken(token).getSuccess());
+    }
+
+    @Test
+    void expiredTemporaryBanNoLongerRejects() {
+        UserBan ban = new UserBan(user, null, BanType.TEMPORARY, "test", 60);
+        ban.setId(11L);
+        ban.setBanEndTime(LocalDateTime.now().minusMinutes(1));
+        banIndexService.put(ban);
+
+        assertTrue(authService.validateToken(token).getSuccess());
+    }
+}
@@ -0,0 +1,28 @@
+package com.lby.moyuultimate.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 货币服务吞吐基准：与压力测试相同的并发加减负载，要求吞吐不低于每秒5万次
+ *
+ * 运行方式：mvn test -Dtest=CurrencyServiceBenchmarkTests -Dbenchmark=true [-Dbenchmark.operations=250000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CurrencyServiceBenchmarkTests {
+
+    private static final int THREADS = 8;
+    private static final long MIN_MUTATIONS_PER_SECOND = 50_000;
+
+    @Test
+    void mixedCreditsAndDebitsThroughput() throws Exception {
+        int operations = Integer.getInteger("benchmark.operations", 250_000);
+        CurrencyServiceStressTests.LoadResult result = CurrencyServiceStressTests.runMixedLoad(THREADS, operations);
+        double perSecond = result.mutations() / (result.elapsedNanos() / 1e9);
+        System.out.printf("%d mutations in %d ms (%.0f/s)%n",
+                result.mutations(), result.elapsedNanos() / 1_000_000, perSecond);
+        assertTrue(perSecond >= MIN_MUTATIONS_PER_SECOND, "throughput " + perSecond);
+    }
+}
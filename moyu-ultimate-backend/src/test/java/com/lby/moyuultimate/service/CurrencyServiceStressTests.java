@@ -0,0 +1,197 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.entity.CurrencyType;
+import com.lby.moyuultimate.entity.PlayerWallet;
+import com.lby.moyuultimate.repository.PlayerWalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 货币服务并发压力测试：多线程对少量玩家并发加减余额，同时后台持续批量写入账本
+ * 校验没有丢失更新、余额不为负、写入的账本与最终余额一致（吞吐要求见 CurrencyServiceBenchmarkTests）
+ * 另外校验空闲钱包在账本写入后淘汰、删除用户时丢弃未写入的记录
+ */
+class CurrencyServiceStressTests {
+
+    private static final int PLAYERS = 1000;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+
+    /** 一轮并发加减的结果 */
+    record LoadResult(long mutations, long elapsedNanos) {}
+
+    @Test
+    void concurrentCreditsAndDebitsNeverLoseUpdates() throws Exception {
+        runMixedLoad(THREADS, OPERATIONS_PER_THREAD);
+    }
+
+    /**
+     * 多线程对 PLAYERS 个玩家并发加减金币，结束后校验余额与账本，返回变动次数和耗时
+     */
+    static LoadResult runMixedLoad(int threads, int operationsPerThread) throws Exception {
+        // 账本中每个玩家金币变动之和，由模拟的 batchUpdate 汇总
+        AtomicLongArray ledgerSums = new AtomicLongArray(PLAYERS);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class, withSettings().stubOnly());
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object[]> rows = invocation.getArgument(1);
+            if (sql.startsWith("INSERT INTO currency_ledger")) {
+                for (Object[] row : rows) {
+                    ledgerSums.addAndGet((int) (long) (Long) row[0], (Long) row[2]);
+                }
+            }
+            return new int[rows.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        PlayerWalletRepository walletRepository = mock(PlayerWalletRepository.class, withSettings().stubOnly());
+        when(walletRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        CurrencyService currencyService = new CurrencyService();
+        ReflectionTestUtils.setField(currencyService, "playerWalletRepository", walletRepository);
+        ReflectionTestUtils.setField(currencyService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(currencyService, "transactionManager",
+                mock(PlatformTransactionManager.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(currencyService, "flushBatchSize", 2000);
+        ReflectionTestUtils.setField(currencyService, "maxPendingEntries", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(currencyService, "leaderboardService", new LeaderboardService());
+        ReflectionTestUtils.setField(currencyService, "pushService", new PushService());
+
+        AtomicLongArray expected = new AtomicLongArray(PLAYERS);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (running.get()) {
+                currencyService.flush();
+            }
+        });
+        flusher.start();
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < operationsPerThread; i++) {
+                    long player = random.nextInt(PLAYERS);
+                    if (random.nextInt(3) == 0) {
+                        long amount = 1 + random.nextInt(150);
+                        try {
+                            currencyService.debit(player, CurrencyType.GOLD, amount, "speed-up");
+                            expected.addAndGet((int) player, -amount);
+                        } catch (InsufficientBalanceException ignored) {
+                            // 余额不足时不变
+                        }
+                    } else {
+                        long amount = 1 + random.nextInt(100);
+                        currencyService.credit(player, CurrencyType.GOLD, amount, "harvest-sell");
+                        expected.addAndGet((int) player, amount);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+        running.set(false);
+        flusher.join();
+        currencyService.flush();
+
+        for (int player = 0; player < PLAYERS; player++) {
+            long balance = currencyService.getBalances((long) player).get(CurrencyType.GOLD);
+            assertTrue(balance >= 0);
+            assertEquals(expected.get(player), balance, "player " + player);
+            assertEquals(balance, ledgerSums.get(player), "ledger of player " + player);
+        }
+        assertEquals(0, currencyService.getStats().get("pendingEntries"));
+        return new LoadResult((Long) currencyService.getStats().get("mutations"), elapsed);
+    }
+
+    @Test
+    void evictsFlushedIdleWalletsAndDropsDeletedOnes() {
+        // 模拟 player_wallets 表中的金币余额
+        Map<Long, Long> storedGold = new ConcurrentHashMap<>();
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            List<Object[]> rows = invocation.getArgument(1);
+            if (sql.startsWith("INSERT INTO player_wallets (user_id, gold")) {
+                for (Object[] row : rows) {
+                    storedGold.put((Long) row[0], (Long) row[1]);
+                }
+            }
+            return new int[rows.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        PlayerWalletRepository walletRepository = mock(PlayerWalletRepository.class);
+        when(walletRepository.findById(anyLong())).thenAnswer(invocation -> {
+            Long gold = storedGold.get((Long) invocation.getArgument(0));
+            if (gold == null) {
+                return Optional.empty();
+            }
+            PlayerWallet row = new PlayerWallet();
+            row.setGold(gold);
+            return Optional.of(row);
+        });
+
+        CurrencyService currencyService = new CurrencyService();
+        ReflectionTestUtils.setField(currencyService, "playerWalletRepository", walletRepository);
+        ReflectionTestUtils.setField(currencyService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(currencyService, "transactionManager",
+                mock(PlatformTransactionManager.class, withSettings().stubOnly()));
+        ReflectionTestUtils.setField(currencyService, "flushBatchSize", 2000);
+        ReflectionTestUtils.setField(currencyService, "maxPendingEntries", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(currencyService, "idleEvictMs", -1L);
+        ReflectionTestUtils.setField(currencyService, "leaderboardService", new LeaderboardService());
+        ReflectionTestUtils.setField(currencyService, "pushService", new PushService());
+
+        currencyService.credit(1L, CurrencyType.GOLD, 100, "harvest-sell");
+        currencyService.credit(2L, CurrencyType.GOLD, 50, "harvest-sell");
+        // 删除前的记录尚未写入，删除后不会再写回
+        currencyService.deleteWallet(2L);
+        verify(jdbcTemplate).update(eq("DELETE FROM player_wallets WHERE user_id = ?"), eq(2L));
+        currencyService.flush();
+
+        assertEquals(0, currencyService.getStats().get("wallets"));
+        assertEquals(0, currencyService.getStats().get("pendingEntries"));
+        assertEquals(100L, storedGold.get(1L));
+        assertFalse(storedGold.containsKey(2L));
+        // 淘汰后重新从数据库加载
+        assertEquals(130L, currencyService.credit(1L, CurrencyType.GOLD, 30, "harvest-sell"));
+        // 已删除的用户不再加载钱包
+        assertThrows(IllegalStateException.class, () -> currencyService.getBalances(2L));
+    }
+}
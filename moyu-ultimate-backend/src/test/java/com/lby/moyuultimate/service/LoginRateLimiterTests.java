@@ -0,0 +1,48 @@
+package com.lby.moyuultimate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTests {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRefillsAtConfiguredRate() {
+        // 突发3次，每分钟恢复6次（每10秒一次）
+        LoginRateLimiter.Limiter limiter = new LoginRateLimiter.Limiter(3, 6, 100);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("alice", now));
+        }
+        assertEquals(10 * SECOND, limiter.tryAcquire("alice", now));
+        // 被拒绝的尝试不消耗令牌
+        assertEquals(4 * SECOND, limiter.tryAcquire("alice", now + 6 * SECOND));
+        assertEquals(0, limiter.tryAcquire("alice", now + 10 * SECOND));
+        assertTrue(limiter.tryAcquire("alice", now + 10 * SECOND) > 0);
+        // 其他键互不影响
+        assertEquals(0, limiter.tryAcquire("bob", now));
+    }
+
+    @Test
+    void evictsIdleKeysAndBoundsSize() {
+        LoginRateLimiter.Limiter limiter = new LoginRateLimiter.Limiter(5, 60, 2);
+        long now = 1_000 * SECOND;
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("user" + i, now);
+        }
+        // 64个分片，每个分片最多2个键
+        assertTrue(limiter.size() <= 128, "size " + limiter.size());
+
+        limiter.evictIdle(now);
+        assertTrue(limiter.size() > 0);
+        // 令牌恢复满（一个间隔后）即可清理
+        limiter.evictIdle(now + SECOND);
+        assertEquals(0, limiter.size());
+    }
+}
@@ -0,0 +1,63 @@
+package com.lby.moyuultimate.service;
+
+import com.lby.moyuultimate.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NameAvailabilityServiceTests {
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndBoundedFalsePositives() {
+        int entries = 100_000;
+        NameAvailabilityService.BloomFilter filter = new NameAvailabilityService.BloomFilter(entries, 0.01);
+        for (int i = 0; i < entries; i++) {
+            filter.put("player" + i);
+        }
+        for (int i = 0; i < entries; i++) {
+            assertTrue(filter.mightContain("player" + i), "player" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < entries; i++) {
+            if (filter.mightContain("guest" + i)) {
+                falsePositives++;
+            }
+        }
+        // 预期约1%，留出余量
+        assertTrue(falsePositives < entries * 0.015, "false positives " + falsePositives);
+    }
+
+    @Test
+    void namesRegisteredDuringRebuildSurviveTheSwap() {
+        UserRepository userRepository = mock(UserRepository.class);
+        NameAvailabilityService service = new NameAvailabilityService();
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "expectedEntries", 1000L);
+
+        when(userRepository.streamUsernamesAndEmails()).thenReturn(Stream.<Object[]>of(new Object[] {"alice", null}));
+        service.warmUp();
+        assertTrue(service.mightBeTakenUsername("Alice"));
+        assertFalse(service.mightBeTakenUsername("bob"));
+
+        // 重建读取用户表期间注册了 bob
+        when(userRepository.streamUsernamesAndEmails()).thenAnswer(invocation ->
+                Stream.<Object[]>of(new Object[] {"alice", null}).peek(row -> service.add("bob", "bob@example.com")));
+        service.markDeleted();
+        service.rebuildIfNeeded();
+
+        assertEquals(2L, service.getStats().get("rebuilds"));
+        assertEquals(0L, service.getStats().get("stale"));
+        assertTrue(service.mightBeTakenUsername("bob"));
+        assertTrue(service.mightBeTakenEmail("bob@example.com"));
+    }
+}